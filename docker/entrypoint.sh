@@ -0,0 +1,11 @@
+#!/bin/sh
+# Starts from the AOT bean definitions and the CDS archive built into the image. FAST_START=false runs the plain
+# jar instead, for instance to rule out AOT when a bean behaves differently than under ./gradlew bootRun.
+set -eu
+
+cd /app/application
+if [ "${FAST_START:-true}" = "true" ]; then
+    # A stale or mismatched archive is ignored with a warning rather than failing the start
+    exec java -XX:SharedArchiveFile=app.jsa -Xshare:auto -Dspring.aot.enabled=true ${JAVA_OPTS:-} -jar app.jar "$@"
+fi
+exec java ${JAVA_OPTS:-} -jar app.jar "$@"
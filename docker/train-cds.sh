@@ -0,0 +1,28 @@
+#!/bin/sh
+# Training run for the class data sharing archive, run once while the image is built. The application context
+# is refreshed from the AOT bean definitions and the JVM exits before anything is started, so neither Redis nor
+# the parameter store is needed. Every class loaded on the way is dumped into app.jsa.
+set -eu
+
+cd /app/application
+keys=$(mktemp -d)
+trap 'rm -rf "$keys"' EXIT
+
+# JwtUtil parses its key pair and WeatherDataClient resolves the upstream settings while the context refreshes,
+# placeholders are enough for both
+apk add --no-cache --virtual .cds-training openssl >/dev/null
+openssl genpkey -algorithm RSA -pkeyopt rsa_keygen_bits:2048 -out "$keys/private.pem" 2>/dev/null
+openssl pkey -in "$keys/private.pem" -pubout -out "$keys/public.pem"
+
+java -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+    -jar app.jar \
+    --spring.cloud.aws.parameterstore.enabled=false \
+    --openweathermap.api.url=http://localhost \
+    --openweathermap.api.key=training \
+    --security.admin-password=training \
+    --security.private-key="$(cat "$keys/private.pem")" \
+    --security.public-key="$(cat "$keys/public.pem")" \
+    --security.token-expiration=60000
+
+apk del .cds-training >/dev/null
+test -s app.jsa
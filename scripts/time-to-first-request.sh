@@ -0,0 +1,49 @@
+#!/bin/sh
+# Measures time to first request of the Docker image with and without fast start: the time from `docker run`
+# until the first answer from /actuator/health/liveness, best of RUNS starts each.
+#
+#   docker build -t weather-service . && scripts/time-to-first-request.sh
+#
+# The container has to be able to start: pass its Redis host, security.* settings and either AWS credentials
+# or --spring.cloud.aws.parameterstore.enabled=false through DOCKER_RUN_OPTS and APP_ARGS.
+set -eu
+
+IMAGE=${IMAGE:-weather-service}
+RUNS=${RUNS:-5}
+PORT=${PORT:-9090}
+DOCKER_RUN_OPTS=${DOCKER_RUN_OPTS:-}
+APP_ARGS=${APP_ARGS:-}
+
+# date +%N is missing on macOS and busybox
+now_ms() {
+    perl -MTime::HiRes=time -e 'printf "%d\n", time * 1000'
+}
+
+measure() {
+    best=
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        start=$(now_ms)
+        # shellcheck disable=SC2086
+        id=$(docker run -d --rm -p "$PORT:9090" -e FAST_START="$1" $DOCKER_RUN_OPTS "$IMAGE" $APP_ARGS)
+        until curl -fs -o /dev/null "http://localhost:$PORT/actuator/health/liveness"; do
+            if ! docker inspect "$id" >/dev/null 2>&1; then
+                echo "Container exited before answering, run it by hand to see why" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        elapsed=$(( $(now_ms) - start ))
+        docker stop -t 5 "$id" >/dev/null
+        if [ -z "$best" ] || [ "$elapsed" -lt "$best" ]; then
+            best=$elapsed
+        fi
+        i=$((i + 1))
+    done
+    echo "$best"
+}
+
+plain=$(measure false)
+fast=$(measure true)
+echo "time to first request, best of $RUNS: plain java -jar ${plain} ms, AOT + CDS ${fast} ms"
+echo "README row: | $(uname -sm), $(docker info --format '{{.NCPU}}' 2>/dev/null || echo '?') CPUs | ${plain} ms | ${fast} ms |"
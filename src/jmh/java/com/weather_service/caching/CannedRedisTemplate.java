@@ -0,0 +1,32 @@
+package com.weather_service.caching;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+
+/**
+ * Answers every script with the same raw reply, so lookups can be measured without a Redis server.
+ * Values are encoded with the same serializer {@link CacheConfig} configures.
+ */
+public class CannedRedisTemplate extends RedisTemplate<String, Object> {
+
+    private final List<?> reply;
+
+    public CannedRedisTemplate(List<?> reply) {
+        this.reply = reply;
+        setValueSerializer(serializer());
+    }
+
+    public static RedisSerializer<Object> serializer() {
+        return new WeatherDataRedisSerializer(CacheConfig.jsonSerializer(), true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RedisScript<T> script, RedisSerializer<?> argsSerializer, RedisSerializer<T> resultSerializer,
+                         List<String> keys, Object... args) {
+        return (T) reply;
+    }
+}
@@ -0,0 +1,32 @@
+package com.weather_service.caching;
+
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.core.GeoOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Answers every geo search with the same results, so lookups can be measured without a Redis server.
+ */
+public class CannedStringRedisTemplate extends StringRedisTemplate {
+
+    private final GeoOperations<String, String> geoOperations;
+
+    @SuppressWarnings("unchecked")
+    public CannedStringRedisTemplate(GeoResults<GeoLocation<String>> results) {
+        geoOperations = (GeoOperations<String, String>) Proxy.newProxyInstance(GeoOperations.class.getClassLoader(),
+                new Class<?>[]{GeoOperations.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("search")) {
+                        return results;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Override
+    public GeoOperations<String, String> opsForGeo() {
+        return geoOperations;
+    }
+}
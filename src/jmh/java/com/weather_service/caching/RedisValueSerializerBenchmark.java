@@ -0,0 +1,59 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writing and reading a cached entry with the Redis value serializer, in both value formats.
+ */
+@State(Scope.Benchmark)
+public class RedisValueSerializerBenchmark {
+
+    @Param({"binary", "json"})
+    private String valueFormat;
+
+    private RedisSerializer<Object> serializer;
+    private WeatherData weatherData;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        serializer = new WeatherDataRedisSerializer(CacheConfig.jsonSerializer(), !"json".equals(valueFormat));
+        weatherData = sampleWeatherData();
+        serialized = serializer.serialize(weatherData);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(weatherData);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+
+    public static WeatherData sampleWeatherData() {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLatitude(51.5085);
+        weatherData.setLongitude(-0.1257);
+        weatherData.setWeatherIds(new ArrayList<>(List.of(501, 701, 300)));
+        weatherData.setWeatherDescriptions(new ArrayList<>(List.of("moderate rain", "mist", "light intensity drizzle")));
+        weatherData.setTemperature(11.2);
+        weatherData.setHumidity(94);
+        weatherData.setWindSpeed(6.69);
+        weatherData.setCloudiness(100);
+        weatherData.setSunrise(LocalDateTime.of(2023, 11, 19, 7, 24, 2));
+        weatherData.setSunset(LocalDateTime.of(2023, 11, 19, 16, 5, 51));
+        return weatherData;
+    }
+}
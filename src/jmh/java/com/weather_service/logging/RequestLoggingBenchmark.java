@@ -0,0 +1,83 @@
+package com.weather_service.logging;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The log lines of a cache hit from four request threads, written the way log4j2.xml does and the way
+ * the prod profile does.
+ * <p>
+ * sync: every line written to the file on the request thread, one access line per request.
+ * async: log4j2-prod.xml, where the per-request lines are below the logger level and the access log is sampled.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RequestLoggingBenchmark {
+
+    private static final String KEY = "weather:51.51:-0.13";
+
+    @Param({"sync", "async"})
+    private String mode;
+
+    private Logger serviceLog;
+    private AccessLogFilter accessLogFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("weather.log.dir", Files.createTempDirectory("weather-logs").toString());
+        Configurator.reconfigure(resource("sync".equals(mode) ? "/log4j2-sync.xml" : "/log4j2-prod.xml"));
+        serviceLog = LogManager.getLogger("com.weather_service.service.WeatherService");
+
+        accessLogFilter = new AccessLogFilter();
+        ReflectionTestUtils.setField(accessLogFilter, "sampleRate", "sync".equals(mode) ? 1.0 : 0.01);
+        ReflectionTestUtils.setField(accessLogFilter, "slowMs", 1000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws URISyntaxException {
+        // Flushes what the async loggers still hold before the next trial reconfigures
+        Configurator.reconfigure(resource("/log4j2-test.xml"));
+    }
+
+    private static URI resource(String name) throws URISyntaxException {
+        return RequestLoggingBenchmark.class.getResource(name).toURI();
+    }
+
+    @State(Scope.Thread)
+    public static class Request {
+
+        private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/weather");
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void cacheHit(Request exchange) throws Exception {
+        accessLogFilter.doFilter(exchange.request, exchange.response, (request, response) -> {
+            serviceLog.debug("Getting weather data");
+            serviceLog.debug("Getting cached weather data.");
+            serviceLog.debug("Closest cached weather data found for key: {}", KEY);
+        });
+    }
+}
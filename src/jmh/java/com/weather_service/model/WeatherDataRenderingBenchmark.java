@@ -0,0 +1,48 @@
+package com.weather_service.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_service.caching.RedisValueSerializerBenchmark;
+import com.weather_service.caching.WeatherResponseCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Rendering a {@link WeatherData} response body, with the Jackson defaults Spring MVC uses, and taking it
+ * from {@link WeatherResponseCache} on a repeat hit.
+ */
+@State(Scope.Benchmark)
+public class WeatherDataRenderingBenchmark {
+
+    private static final String KEY = "weather:51.51:-0.13";
+
+    private ObjectMapper objectMapper;
+    private WeatherResponseCache weatherResponseCache;
+    private WeatherData weatherData;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        weatherData = RedisValueSerializerBenchmark.sampleWeatherData();
+
+        weatherResponseCache = new WeatherResponseCache(objectMapper);
+        ReflectionTestUtils.setField(weatherResponseCache, "ttlMinutes", 5);
+        ReflectionTestUtils.setField(weatherResponseCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherResponseCache, "maxSize", 10_000L);
+        weatherResponseCache.init();
+        weatherResponseCache.render(KEY, weatherData);
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        return objectMapper.writeValueAsBytes(weatherData);
+    }
+
+    @Benchmark
+    public byte[] renderCached() {
+        return weatherResponseCache.render(KEY, weatherData).json();
+    }
+}
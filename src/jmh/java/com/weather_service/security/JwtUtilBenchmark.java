@@ -0,0 +1,64 @@
+package com.weather_service.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+
+/**
+ * Validating the bearer token every authenticated request carries, verified on every call and through
+ * {@link VerifiedTokenCache} with the token already verified.
+ */
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setPrivateKey(pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        securityProperties.setPublicKey(pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        securityProperties.setTokenExpiration(3_600_000);
+
+        jwtUtil = new JwtUtil(securityProperties);
+        jwtUtil.init();
+        token = jwtUtil.generateToken("admin");
+
+        UserDetailsService userDetailsService = new InMemoryUserDetailsManager(
+                User.withUsername("admin").password("{noop}admin").roles("ADMIN").build());
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, userDetailsService, securityProperties);
+        verifiedTokenCache.init();
+        verifiedTokenCache.authenticate(token);
+    }
+
+    private static String pem(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder().encodeToString(encoded)
+                + "\n-----END " + type + "-----";
+    }
+
+    @Benchmark
+    public String validateTokenAndGetUsername() {
+        return jwtUtil.validateTokenAndGetUsername(token);
+    }
+
+    @Benchmark
+    public UserDetails authenticateCached() {
+        return verifiedTokenCache.authenticate(token);
+    }
+}
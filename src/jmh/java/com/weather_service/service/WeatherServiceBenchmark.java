@@ -0,0 +1,128 @@
+package com.weather_service.service;
+
+import com.weather_service.caching.AdaptiveRadius;
+import com.weather_service.caching.CannedRedisTemplate;
+import com.weather_service.caching.CannedStringRedisTemplate;
+import com.weather_service.caching.GridCacheStrategy;
+import com.weather_service.caching.RadiusCacheStrategy;
+import com.weather_service.caching.RedisValueSerializerBenchmark;
+import com.weather_service.caching.WeatherCacheStrategy;
+import com.weather_service.caching.WeatherGeoIndex;
+import com.weather_service.caching.WeatherNearCache;
+import com.weather_service.metrics.WeatherMetrics;
+import com.weather_service.model.WeatherData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The parts of a request {@link WeatherService} runs in process: parsing an upstream response, and picking
+ * the nearest entry out of a lookup reply. Redis is replaced by canned replies and the near cache is off,
+ * so every lookup decodes them.
+ */
+@State(Scope.Benchmark)
+public class WeatherServiceBenchmark {
+
+    private static final double LAT = 51.5085;
+    private static final double LON = -0.1257;
+    // Well inside the fresh window of the 5 and 15 minute TTLs below, so nothing is refreshed
+    private static final long PTTL_MILLIS = 840_000;
+
+    private static final WeatherMetrics METRICS = new WeatherMetrics(new SimpleMeterRegistry());
+
+    private static final byte[] UPSTREAM_RESPONSE = """
+            {
+              "coord": {"lon": -0.1257, "lat": 51.5085},
+              "weather": [
+                {"id": 501, "main": "Rain", "description": "moderate rain", "icon": "10n"},
+                {"id": 701, "main": "Mist", "description": "mist", "icon": "50n"},
+                {"id": 300, "main": "Drizzle", "description": "light intensity drizzle", "icon": "09n"}
+              ],
+              "base": "stations",
+              "main": {"temp": 11.2, "feels_like": 10.71, "temp_min": 9.96, "temp_max": 12.27, "pressure": 998, "humidity": 94},
+              "visibility": 3200,
+              "wind": {"speed": 6.69, "deg": 220, "gust": 12.35},
+              "rain": {"1h": 2.41},
+              "clouds": {"all": 100},
+              "dt": 1700425200,
+              "sys": {"type": 2, "id": 2075535, "country": "GB", "sunrise": 1700378642, "sunset": 1700409951},
+              "timezone": 0,
+              "id": 2643743,
+              "name": "London",
+              "cod": 200
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+
+    // radius: closest of the geo search, grid: closest of the neighbouring cells that hold an entry
+    @Param({"radius", "grid"})
+    private String strategy;
+
+    private WeatherService weatherService;
+
+    @Setup
+    public void setUp() {
+        byte[] value = CannedRedisTemplate.serializer().serialize(RedisValueSerializerBenchmark.sampleWeatherData());
+        WeatherCacheStrategy weatherCacheStrategy = "grid".equals(strategy) ? gridStrategy(value) : radiusStrategy(value);
+
+        PopularityTracker popularityTracker = new PopularityTracker();
+        ReflectionTestUtils.setField(popularityTracker, "maxTracked", 10_000);
+
+        weatherService = new WeatherService(null, null, new WeatherNearCache(null), null, weatherCacheStrategy,
+                null, popularityTracker, METRICS, null);
+        ReflectionTestUtils.setField(weatherService, "ttlMinutes", 5);
+        ReflectionTestUtils.setField(weatherService, "hardTtlMinutes", 15);
+    }
+
+    // Three members in the circle, the closest of them live
+    private static WeatherCacheStrategy radiusStrategy(byte[] value) {
+        GeoResults<GeoLocation<String>> found = new GeoResults<>(List.of(
+                member("weather:{gcp}:51.5:-0.12", 0.5781, -0.12000066041946411, 51.50000042773523516),
+                member("weather:{gcp}:51.51:-0.13", 0.5812, -0.13000011444091797, 51.50999910937163),
+                member("weather:{gcp}:51.52:-0.12", 1.3050, -0.12000066041946411, 51.52000027196451)), Metrics.KILOMETERS);
+        List<Object> reply = List.of(1L, value, PTTL_MILLIS);
+        WeatherGeoIndex weatherGeoIndex = new WeatherGeoIndex(new CannedRedisTemplate(reply),
+                new CannedStringRedisTemplate(found), null, METRICS);
+        ReflectionTestUtils.setField(weatherGeoIndex, "lookupCandidates", 3);
+        ReflectionTestUtils.setField(weatherGeoIndex, "shardPrecision", 3);
+
+        RadiusCacheStrategy radiusCacheStrategy = new RadiusCacheStrategy(weatherGeoIndex, new AdaptiveRadius());
+        ReflectionTestUtils.setField(radiusCacheStrategy, "cacheDistance", 1.0);
+        return radiusCacheStrategy;
+    }
+
+    // Three of the nine cells read hold an entry, none of them the requested point's own
+    private static WeatherCacheStrategy gridStrategy(byte[] value) {
+        List<Object> reply = List.of(2L, value, PTTL_MILLIS, 5L, value, PTTL_MILLIS, 7L, value, PTTL_MILLIS);
+        GridCacheStrategy gridCacheStrategy = new GridCacheStrategy(new CannedRedisTemplate(reply), null);
+        ReflectionTestUtils.setField(gridCacheStrategy, "cacheDistance", 1.0);
+        ReflectionTestUtils.setField(gridCacheStrategy, "probeNeighbours", true);
+        return gridCacheStrategy;
+    }
+
+    private static GeoResult<GeoLocation<String>> member(String key, double distanceKm, double lon, double lat) {
+        return new GeoResult<>(new GeoLocation<>(key, new Point(lon, lat)), new Distance(distanceKm, Metrics.KILOMETERS));
+    }
+
+    @Benchmark
+    public WeatherData parseWeatherData() {
+        return weatherService.parseWeatherData(UPSTREAM_RESPONSE);
+    }
+
+    @Benchmark
+    public WeatherData getCachedWeatherData() {
+        return weatherService.getCachedWeatherData(LAT, LON);
+    }
+}
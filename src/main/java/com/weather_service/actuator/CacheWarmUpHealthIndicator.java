@@ -0,0 +1,27 @@
+package com.weather_service.actuator;
+
+import com.weather_service.service.CacheWarmUp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code cacheWarmUp} health: out of service until {@link CacheWarmUp} has filled the cache, so the readiness
+ * probe keeps a cold instance out of the load balancer.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmUpHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmUp cacheWarmUp;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheWarmUp.isWarm() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("seedCoverage", cacheWarmUp.coverage())
+                .withDetail("restored", cacheWarmUp.restored())
+                .build();
+    }
+}
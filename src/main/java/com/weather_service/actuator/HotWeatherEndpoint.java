@@ -0,0 +1,41 @@
+package com.weather_service.actuator;
+
+import com.weather_service.service.HotEntryRefreshScheduler;
+import com.weather_service.service.PopularityTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/hotweather}: the entries kept warm by {@link HotEntryRefreshScheduler} and the ones
+ * still waiting for upstream budget.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "hotweather")
+public class HotWeatherEndpoint {
+
+    private final HotEntryRefreshScheduler hotEntryRefreshScheduler;
+
+    @ReadOperation
+    public HotWeatherReport hotWeather() {
+        return new HotWeatherReport(
+                hotEntryRefreshScheduler.hotSet().stream().map(HotWeatherEndpoint::toEntry).toList(),
+                hotEntryRefreshScheduler.backlog().stream().map(HotWeatherEndpoint::toEntry).toList(),
+                hotEntryRefreshScheduler.remainingBudget());
+    }
+
+    private static HotEntry toEntry(PopularityTracker.HotWeather hot) {
+        return new HotEntry(hot.cachedWeather().key(), hot.cachedWeather().latitude(), hot.cachedWeather().longitude(),
+                hot.hits(), Math.max(0, hot.cachedWeather().ttlMillis() / 1000));
+    }
+
+    public record HotWeatherReport(List<HotEntry> hot, List<HotEntry> backlog, int remainingBudget) {
+    }
+
+    public record HotEntry(String key, double latitude, double longitude, long hits, long ttlSeconds) {
+    }
+}
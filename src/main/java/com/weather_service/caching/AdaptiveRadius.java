@@ -0,0 +1,204 @@
+package com.weather_service.caching;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.weather_service.model.WeatherData;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lookup radius learned per region from how much the weather varies there.
+ * <p>
+ * A region is a geohash cell of {@code weather.cache.adaptive.region-precision} characters and starts at the
+ * configured cache distance. Every fresh upstream observation is compared with the closest cached entry: when the
+ * two agree within the tolerances, the region's radius widens towards the distance between them, by at most
+ * {@code widen-factor} at a time. When they differ within reach of the radius, it narrows to {@code narrow-factor}
+ * of that distance. Narrowing is faster than widening, so a region that turns out to vary is served closer
+ * answers right away. The radius stays between {@code min-distance} and {@code max-distance}.
+ * <p>
+ * A miss only ever meets neighbours beyond the radius, so {@code hit-sample-rate} of the hits from further than
+ * {@code min-distance} are checked against a fresh observation at the requested point too. Without them a region
+ * whose weather varies inside its radius would never narrow.
+ */
+@Log4j2
+@Component
+public class AdaptiveRadius implements MeterBinder {
+
+    @Value("${weather.cache.adaptive.enabled:false}")
+    private boolean enabled;
+    @Value("${weather.cache.adaptive.region-precision:4}")
+    private int regionPrecision;
+    @Value("${weather.cache.adaptive.min-distance:0.25}")
+    private double minDistanceKm;
+    @Value("${weather.cache.adaptive.max-distance:10.0}")
+    private double maxDistanceKm;
+    @Value("${weather.cache.adaptive.widen-factor:1.25}")
+    private double widenFactor;
+    @Value("${weather.cache.adaptive.narrow-factor:0.5}")
+    private double narrowFactor;
+    @Value("${weather.cache.adaptive.hit-sample-rate:0.01}")
+    private double hitSampleRate;
+    @Value("${weather.cache.adaptive.max-regions:10000}")
+    private long maxRegions;
+    @Value("${weather.cache.adaptive.tolerance.temperature:1.0}")
+    private double temperatureTolerance;
+    @Value("${weather.cache.adaptive.tolerance.humidity:10}")
+    private int humidityTolerance;
+    @Value("${weather.cache.adaptive.tolerance.wind-speed:2.0}")
+    private double windSpeedTolerance;
+    @Value("${weather.cache.adaptive.tolerance.cloudiness:25}")
+    private int cloudinessTolerance;
+
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong uniform = new AtomicLong();
+    private final AtomicLong varied = new AtomicLong();
+
+    private Cache<String, Double> regions;
+    private DistributionSummary effectiveRadius;
+
+    @PostConstruct
+    public void init() {
+        regions = Caffeine.newBuilder()
+                .maximumSize(maxRegions)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled && regions != null;
+    }
+
+    /**
+     * Furthest a neighbour can be to say anything about a region's radius.
+     */
+    public double maxDistanceKm() {
+        return maxDistanceKm;
+    }
+
+    /**
+     * Radius to search around the given coordinates, {@code baseKm} until the region has learned its own.
+     */
+    public double radiusKm(double lat, double lon, double baseKm) {
+        double radiusKm = baseKm;
+        if (isEnabled()) {
+            Double learned = regions.getIfPresent(regionOf(lat, lon));
+            if (learned != null) {
+                radiusKm = learned;
+            }
+        }
+        if (effectiveRadius != null) {
+            effectiveRadius.record(radiusKm);
+        }
+        return radiusKm;
+    }
+
+    /**
+     * Adjusts the radius of the region around a fresh observation by comparing it with the closest cached entry.
+     */
+    public void observe(double lat, double lon, double baseKm, CachedWeather neighbour, WeatherData fresh) {
+        if (!isEnabled()) {
+            return;
+        }
+        double distanceKm = neighbour.distanceKm();
+        boolean similar = similar(fresh, neighbour.weatherData());
+        (similar ? uniform : varied).incrementAndGet();
+
+        String region = regionOf(lat, lon);
+        regions.asMap().compute(region, (key, current) -> {
+            double radiusKm = current != null ? current : baseKm;
+            if (similar && distanceKm > radiusKm) {
+                radiusKm = Math.min(distanceKm, radiusKm * widenFactor);
+            } else if (!similar && distanceKm <= radiusKm * widenFactor) {
+                radiusKm = Math.min(radiusKm, distanceKm) * narrowFactor;
+            }
+            return Math.clamp(radiusKm, minDistanceKm, maxDistanceKm);
+        });
+        log.trace("Region {} radius {} km after a {} neighbour at {} km", region, regions.getIfPresent(region),
+                similar ? "similar" : "different", distanceKm);
+    }
+
+    /**
+     * Counts a hit that lay beyond {@code baseKm}, an upstream call the fixed radius would have made.
+     */
+    public CachedWeather served(CachedWeather hit, double baseKm) {
+        if (hit != null && hit.distanceKm() > baseKm) {
+            saved.incrementAndGet();
+        }
+        return hit;
+    }
+
+    /**
+     * Whether to check a hit against a fresh observation at the requested point.
+     */
+    public boolean shouldSample(CachedWeather hit) {
+        if (!isEnabled() || hit.distanceKm() <= minDistanceKm || ThreadLocalRandom.current().nextDouble() >= hitSampleRate) {
+            return false;
+        }
+        sampled.incrementAndGet();
+        return true;
+    }
+
+    boolean similar(WeatherData a, WeatherData b) {
+        return within(a.getTemperature(), b.getTemperature(), temperatureTolerance)
+                && within(a.getWindSpeed(), b.getWindSpeed(), windSpeedTolerance)
+                && within(a.getHumidity(), b.getHumidity(), humidityTolerance)
+                && within(a.getCloudiness(), b.getCloudiness(), cloudinessTolerance)
+                && weatherGroup(a.getWeatherIds()) == weatherGroup(b.getWeatherIds());
+    }
+
+    // Fields missing from either side say nothing about the difference
+    private static boolean within(Number a, Number b, double tolerance) {
+        return a == null || b == null || Math.abs(a.doubleValue() - b.doubleValue()) <= tolerance;
+    }
+
+    // Condition codes share their hundreds digit per group (5xx rain, 6xx snow), except 800 clear among 80x clouds
+    private static int weatherGroup(List<Integer> weatherIds) {
+        if (weatherIds == null || weatherIds.isEmpty()) {
+            return 0;
+        }
+        int id = weatherIds.getFirst();
+        return id == 800 ? id : id / 100;
+    }
+
+    private String regionOf(double lat, double lon) {
+        return GeoShards.shardOf(lat, lon, regionPrecision);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        effectiveRadius = DistributionSummary.builder("weather.cache.radius")
+                .description("Radius a cache lookup searched")
+                .baseUnit("kilometers")
+                .serviceLevelObjectives(0.25, 0.5, 1, 2, 5, 10)
+                .register(registry);
+        Gauge.builder("weather.cache.radius.regions", this, radius -> radius.regions != null ? radius.regions.estimatedSize() : 0)
+                .description("Regions with a learned radius")
+                .register(registry);
+        FunctionCounter.builder("weather.cache.radius.saved", saved, AtomicLong::get)
+                .description("Hits beyond the configured cache distance, each an upstream call the fixed radius would have made")
+                .register(registry);
+        FunctionCounter.builder("weather.cache.radius.sampled", sampled, AtomicLong::get)
+                .description("Hits checked against a fresh observation at the requested point")
+                .register(registry);
+        FunctionCounter.builder("weather.cache.radius.observations", uniform, AtomicLong::get)
+                .description("Fresh observations compared with the closest cached entry, by outcome")
+                .tag("result", "similar")
+                .register(registry);
+        FunctionCounter.builder("weather.cache.radius.observations", varied, AtomicLong::get)
+                .description("Fresh observations compared with the closest cached entry, by outcome")
+                .tag("result", "different")
+                .register(registry);
+    }
+}
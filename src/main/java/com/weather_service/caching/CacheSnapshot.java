@@ -0,0 +1,116 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File of cache entries that lets a fresh instance refill Redis without calling upstream.
+ * <p>
+ * The file holds a header ({@link #MAGIC}, a version byte, the entry count) followed by one record per entry:
+ * latitude and longitude as raw doubles, the expiry in epoch millis, and the value as the Redis value
+ * serializer encodes it, length-prefixed. Values in the binary {@link WeatherData} layout keep a snapshot of
+ * thousands of entries to a few hundred kilobytes. Files are written to a temporary sibling and moved into
+ * place, so a reader never sees a half-written snapshot, and read back memory-mapped in one pass.
+ */
+public final class CacheSnapshot {
+
+    // "WSNP"
+    static final int MAGIC = 0x57534E50;
+    static final byte VERSION = 1;
+    // Latitude, longitude, expiry and value length of an entry, before the value itself
+    private static final int ENTRY_HEADER_BYTES = 2 * Double.BYTES + Long.BYTES + Integer.BYTES;
+
+    private CacheSnapshot() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param expiresAtMillis when the entry expires from Redis, epoch millis
+     */
+    public record Entry(double latitude, double longitude, long expiresAtMillis, WeatherData weatherData) {
+    }
+
+    public static void write(Path path, List<Entry> entries, RedisSerializer<Object> serializer) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    byte[] value = serializer.serialize(entry.weatherData());
+                    out.writeDouble(entry.latitude());
+                    out.writeDouble(entry.longitude());
+                    out.writeLong(entry.expiresAtMillis());
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads every entry of the snapshot, skipping values the serializer can no longer decode.
+     *
+     * @throws IOException if the file is missing, not a snapshot, truncated or corrupt
+     */
+    public static List<Entry> read(Path path, RedisSerializer<Object> serializer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IOException(path + " is not a cache snapshot of this version");
+            }
+            // Sizes are checked against what is left of the file, so a corrupt one cannot make us allocate gigabytes
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / ENTRY_HEADER_BYTES) {
+                throw new IOException(path + " is corrupt, it cannot hold " + count + " entries");
+            }
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                double lat = buffer.getDouble();
+                double lon = buffer.getDouble();
+                long expiresAtMillis = buffer.getLong();
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException(path + " is corrupt, entry " + i + " has a value of " + length + " bytes");
+                }
+                byte[] value = new byte[length];
+                buffer.get(value);
+                try {
+                    if (serializer.deserialize(value) instanceof WeatherData weatherData) {
+                        entries.add(new Entry(lat, lon, expiresAtMillis, weatherData));
+                    }
+                } catch (SerializationException e) {
+                    // Written by a newer layout, the entry is refetched like any other miss
+                }
+            }
+            return entries;
+        } catch (BufferUnderflowException e) {
+            throw new IOException(path + " is truncated", e);
+        }
+    }
+}
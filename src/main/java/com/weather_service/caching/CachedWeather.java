@@ -0,0 +1,24 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+
+/**
+ * A cache entry, as found by a lookup or just stored.
+ *
+ * @param key             Redis value key the entry is stored under
+ * @param weatherData     cached weather data
+ * @param latitude        latitude the entry is stored at, used to refresh it
+ * @param longitude       longitude the entry is stored at, used to refresh it
+ * @param distanceKm      distance between the requested point and the entry
+ * @param expiresAtMillis when the value key expires, epoch millis
+ */
+public record CachedWeather(String key, WeatherData weatherData, double latitude, double longitude,
+                            double distanceKm, long expiresAtMillis) {
+
+    /**
+     * Remaining time to live of the value key.
+     */
+    public long ttlMillis() {
+        return expiresAtMillis - System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,71 @@
+package com.weather_service.caching;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes members of the {@link WeatherGeoIndex} shards whose value keys have expired, so the index stays
+ * proportional to the live cache and radius searches only see live entries.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class GeoIndexSweeper {
+
+    // Pops expired members from the expiry set and the geo index atomically, so an entry re-cached
+    // between the range and the removal keeps its fresh score
+    private static final RedisScript<Long> SWEEP_SCRIPT = RedisScript.of("""
+            local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+            if #expired > 0 then
+                redis.call('ZREM', KEYS[1], unpack(expired))
+                redis.call('ZREM', KEYS[2], unpack(expired))
+            end
+            return #expired
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${weather.cache.sweep-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${weather.cache.sweep-interval-ms:30000}")
+    public void sweep() {
+        try {
+            long removed = 0;
+            Set<String> shards = stringRedisTemplate.opsForSet().members(WeatherGeoIndex.SHARDS_KEY);
+            for (String shard : shards != null ? shards : Set.<String>of()) {
+                long batch;
+                do {
+                    batch = sweepBatch(shard, System.currentTimeMillis());
+                    removed += batch;
+                } while (batch == batchSize);
+            }
+
+            if (removed > 0) {
+                log.debug("Removed {} expired members from the geo index", removed);
+            }
+        } catch (Exception e) {
+            log.error("Error sweeping geo index: {}", e.getMessage());
+        }
+    }
+
+    long sweepBatch(String shard, long now) {
+        Long removed = redisTemplate.execute(SWEEP_SCRIPT, new StringRedisSerializer(),
+                new GenericToStringSerializer<>(Long.class),
+                List.of(WeatherGeoIndex.geoKey(shard), WeatherGeoIndex.expiryKey(shard)),
+                String.valueOf(now), String.valueOf(batchSize));
+        return removed != null ? removed : 0;
+    }
+}
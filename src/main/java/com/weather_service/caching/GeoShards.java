@@ -0,0 +1,102 @@
+package com.weather_service.caching;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Splits the world into geo index shards named by a geohash prefix. A prefix of {@code precision} characters
+ * names a cell of {@code 5 * precision} interleaved bits, longitude first, as in a standard geohash.
+ */
+class GeoShards {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final double KM_PER_DEGREE = 111.32;
+    // More shards than this around one point means a radius far beyond what lookups use
+    private static final int MAX_SHARDS = 256;
+
+    private GeoShards() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static String shardOf(double lat, double lon, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lonBit = true;
+        int bits = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            if (lonBit) {
+                double mid = (minLon + maxLon) / 2;
+                index <<= 1;
+                if (lon >= mid) {
+                    index |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                index <<= 1;
+                if (lat >= mid) {
+                    index |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+            lonBit = !lonBit;
+            if (++bits == 5) {
+                hash.append(BASE32[index]);
+                bits = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Every shard that overlaps the box around a circle of {@code radiusKm}, the shard of the centre first.
+     */
+    static Set<String> shardsWithin(double lat, double lon, double radiusKm, int precision) {
+        Set<String> shards = new LinkedHashSet<>();
+        shards.add(shardOf(lat, lon, precision));
+
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(-90, lat - latSpan);
+        double maxLat = Math.min(90, lat + latSpan);
+        // Widest at the latitude closest to a pole
+        double widestCos = Math.max(Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat)))), 0.01);
+        double lonSpan = Math.min(180, radiusKm / (KM_PER_DEGREE * widestCos));
+
+        // Samples no further apart than a cell hit every cell between the edges of the box
+        int latBits = 5 * precision / 2;
+        int lonBits = 5 * precision - latBits;
+        double cellHeight = 180 / Math.pow(2, latBits);
+        double cellWidth = 360 / Math.pow(2, lonBits);
+        for (double sampleLat = minLat; ; sampleLat = Math.min(maxLat, sampleLat + cellHeight)) {
+            for (double sampleLon = lon - lonSpan; ; sampleLon = Math.min(lon + lonSpan, sampleLon + cellWidth)) {
+                shards.add(shardOf(sampleLat, wrapLongitude(sampleLon), precision));
+                if (shards.size() >= MAX_SHARDS || sampleLon >= lon + lonSpan) {
+                    break;
+                }
+            }
+            if (shards.size() >= MAX_SHARDS || sampleLat >= maxLat) {
+                break;
+            }
+        }
+        return shards;
+    }
+
+    private static double wrapLongitude(double lon) {
+        if (lon < -180) {
+            return lon + 360;
+        }
+        if (lon >= 180) {
+            return lon - 360;
+        }
+        return lon;
+    }
+}
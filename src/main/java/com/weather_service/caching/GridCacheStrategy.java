@@ -0,0 +1,233 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.Coordinates;
+import com.weather_service.model.WeatherData;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Snaps coordinates to a grid cell and keys entries by cell, so a lookup is a plain key read with no
+ * geo search. Cells are squares whose diagonal equals {@code weather.cache.distance}, which keeps every
+ * hit inside the same distance the radius strategy guarantees. With {@code weather.cache.grid.probe-neighbours}
+ * the eight surrounding cells are read in the same round trip and the closest one within the distance is used.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "weather.cache.strategy", havingValue = "grid")
+public class GridCacheStrategy implements WeatherCacheStrategy {
+
+    static final double KM_PER_DEGREE = 111.32;
+    private static final String CELL_PREFIX = "weather:cell:";
+
+    // Returns {index, value, pttl} for every key in KEYS that exists
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CELLS_SCRIPT = RedisScript.of("""
+            local result = {}
+            for i, key in ipairs(KEYS) do
+                local value = redis.call('GET', key)
+                if value then
+                    table.insert(result, i)
+                    table.insert(result, value)
+                    table.insert(result, redis.call('PTTL', key))
+                end
+            end
+            return result
+            """, List.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    @Value("${weather.cache.distance:1.0}")
+    private Double cacheDistance;
+    @Value("${weather.cache.grid.probe-neighbours:false}")
+    private boolean probeNeighbours;
+
+    @Override
+    public String key(double lat, double lon) {
+        Cell cell = cellOf(lat, lon);
+        return cell.key();
+    }
+
+    @Override
+    public void index(double lat, double lon, String weatherKey, Duration ttl) {
+        // The key itself is the index
+    }
+
+    @Override
+    public CachedWeather find(double lat, double lon) {
+        List<Cell> cells = cellsToRead(lat, lon);
+        List<String> keys = cells.stream().map(Cell::key).toList();
+
+        List<?> reply = redisTemplate.execute(CELLS_SCRIPT, RedisSerializer.string(), null, keys);
+        return closest(lat, lon, cells, reply, cacheDistance);
+    }
+
+    @Override
+    public Mono<CachedWeather> findReactive(double lat, double lon) {
+        List<Cell> cells = cellsToRead(lat, lon);
+        List<String> keys = cells.stream().map(Cell::key).toList();
+
+        return ReactiveScripts.executeRaw(reactiveRedisTemplate, CELLS_SCRIPT, keys, List.of())
+                .mapNotNull(reply -> closest(lat, lon, cells, reply, cacheDistance));
+    }
+
+    /**
+     * {@link #find} for every coordinate, pipelined into a single round trip.
+     * Scripts are sent with EVAL because a missing EVALSHA script cannot be retried inside a pipeline.
+     */
+    @Override
+    public List<CachedWeather> findAll(List<Coordinates> coordinates) {
+        byte[] script = CELLS_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        List<List<Cell>> cellsPerPoint = coordinates.stream()
+                .map(point -> cellsToRead(point.getLat(), point.getLon()))
+                .toList();
+
+        // A null result serializer keeps the raw replies, as in find
+        List<Object> replies = redisTemplate.executePipelined((RedisConnection connection) -> {
+            for (List<Cell> cells : cellsPerPoint) {
+                byte[][] keys = cells.stream().map(cell -> cell.key().getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+                connection.scriptingCommands().eval(script, ReturnType.MULTI, keys.length, keys);
+            }
+            return null;
+        }, null);
+
+        List<CachedWeather> results = new ArrayList<>(coordinates.size());
+        for (int i = 0; i < coordinates.size(); i++) {
+            Coordinates point = coordinates.get(i);
+            results.add(closest(point.getLat(), point.getLon(), cellsPerPoint.get(i), (List<?>) replies.get(i), cacheDistance));
+        }
+        return results;
+    }
+
+    /**
+     * Reads the surrounding cells whether or not neighbours are probed. Cells are only addressable by key,
+     * so the fallback cannot reach further than them, however large {@code radiusKm} is.
+     */
+    @Override
+    public CachedWeather findFallback(double lat, double lon, double radiusKm) {
+        List<Cell> cells = neighbourhood(lat, lon);
+        List<String> keys = cells.stream().map(Cell::key).toList();
+
+        List<?> reply = redisTemplate.execute(CELLS_SCRIPT, RedisSerializer.string(), null, keys);
+        return closest(lat, lon, cells, reply, radiusKm);
+    }
+
+    private List<Cell> cellsToRead(double lat, double lon) {
+        return probeNeighbours ? neighbourhood(lat, lon) : List.of(cellOf(lat, lon));
+    }
+
+    private CachedWeather closest(double lat, double lon, List<Cell> cells, List<?> reply, double maxDistanceKm) {
+        if (reply == null || reply.isEmpty()) {
+            return null;
+        }
+
+        CachedWeather closest = null;
+        for (int i = 0; i + 2 < reply.size(); i += 3) {
+            Cell cell = cells.get(((Long) reply.get(i)).intValue() - 1);
+            double distanceKm = GeoUtils.distanceKm(lat, lon, cell.centerLat(), cell.centerLon());
+            // The requested point's own cell always wins, neighbours only within the max distance
+            boolean ownCell = cell.equals(cells.get(0));
+            if (!ownCell && (distanceKm > maxDistanceKm || (closest != null && closest.distanceKm() <= distanceKm))) {
+                continue;
+            }
+            WeatherData weatherData = (WeatherData) redisTemplate.getValueSerializer().deserialize((byte[]) reply.get(i + 1));
+            closest = new CachedWeather(cell.key(), weatherData, cell.centerLat(), cell.centerLon(), distanceKm,
+                    System.currentTimeMillis() + (Long) reply.get(i + 2));
+            if (ownCell) {
+                break;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * The cell containing the coordinates first, followed by its distinct neighbours.
+     */
+    List<Cell> neighbourhood(double lat, double lon) {
+        Cell center = cellOf(lat, lon);
+        double latStep = latStep();
+        double lonStep = lonStep(center.centerLat());
+
+        Set<Cell> cells = new LinkedHashSet<>();
+        cells.add(center);
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                double neighbourLat = center.centerLat() + dLat * latStep;
+                if (neighbourLat < -90 || neighbourLat > 90) {
+                    continue;
+                }
+                cells.add(cellOf(neighbourLat, wrapLongitude(center.centerLon() + dLon * lonStep)));
+            }
+        }
+        return new ArrayList<>(cells);
+    }
+
+    Cell cellOf(double lat, double lon) {
+        double latStep = latStep();
+        long row = (long) Math.floor((lat + 90) / latStep);
+        double centerLat = Math.min(90, -90 + (row + 0.5) * latStep);
+
+        // Columns narrow towards the poles so cells stay roughly square on the ground
+        double lonStep = lonStep(centerLat);
+        long column = (long) Math.floor((lon + 180) / lonStep);
+        double centerLon = wrapLongitude(-180 + (column + 0.5) * lonStep);
+
+        return new Cell(row, column, centerLat, centerLon);
+    }
+
+    private double latStep() {
+        return cellSideKm() / KM_PER_DEGREE;
+    }
+
+    private double lonStep(double latitude) {
+        double cos = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        return Math.min(360, cellSideKm() / (KM_PER_DEGREE * cos));
+    }
+
+    private double cellSideKm() {
+        return cacheDistance / Math.sqrt(2);
+    }
+
+    private static double wrapLongitude(double lon) {
+        if (lon < -180) {
+            return lon + 360;
+        }
+        if (lon >= 180) {
+            return lon - 360;
+        }
+        return lon;
+    }
+
+    record Cell(long row, long column, double centerLat, double centerLon) {
+
+        String key() {
+            return CELL_PREFIX + row + ":" + column;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Cell cell && cell.row == row && cell.column == column;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(row) * 31 + Long.hashCode(column);
+        }
+    }
+}
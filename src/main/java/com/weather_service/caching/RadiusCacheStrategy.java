@@ -0,0 +1,88 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.Coordinates;
+import com.weather_service.model.WeatherData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Keys entries by their exact coordinates and serves the closest entry within {@code weather.cache.distance},
+ * or within the radius {@link AdaptiveRadius} learned for the region when that is enabled.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "weather.cache.strategy", havingValue = "radius", matchIfMissing = true)
+public class RadiusCacheStrategy implements WeatherCacheStrategy {
+
+    private final WeatherGeoIndex weatherGeoIndex;
+    private final AdaptiveRadius adaptiveRadius;
+
+    @Value("${weather.cache.distance:1.0}")
+    private Double cacheDistance;
+
+    @Override
+    public String key(double lat, double lon) {
+        return weatherGeoIndex.valueKey(lat, lon);
+    }
+
+    @Override
+    public void index(double lat, double lon, String weatherKey, Duration ttl) {
+        weatherGeoIndex.add(lat, lon, weatherKey, ttl);
+    }
+
+    @Override
+    public CachedWeather find(double lat, double lon) {
+        return adaptiveRadius.served(weatherGeoIndex.findNearest(lat, lon, radiusKm(lat, lon)), cacheDistance);
+    }
+
+    @Override
+    public Mono<CachedWeather> findReactive(double lat, double lon) {
+        return weatherGeoIndex.findNearestReactive(lat, lon, radiusKm(lat, lon))
+                .map(hit -> adaptiveRadius.served(hit, cacheDistance));
+    }
+
+    @Override
+    public List<CachedWeather> findAll(List<Coordinates> coordinates) {
+        List<CachedWeather> hits = weatherGeoIndex.findNearestAll(coordinates, this::radiusKm);
+        hits.forEach(hit -> adaptiveRadius.served(hit, cacheDistance));
+        return hits;
+    }
+
+    @Override
+    public CachedWeather findFallback(double lat, double lon, double radiusKm) {
+        return weatherGeoIndex.findNearest(lat, lon, radiusKm);
+    }
+
+    @Override
+    public void observe(double lat, double lon, WeatherData weatherData) {
+        if (!adaptiveRadius.isEnabled()) {
+            return;
+        }
+        // Learning is best effort, a failed comparison must not keep the observation from being cached
+        try {
+            CachedWeather neighbour = weatherGeoIndex.findNearest(lat, lon, adaptiveRadius.maxDistanceKm());
+            if (neighbour != null && !neighbour.key().equals(key(lat, lon))) {
+                adaptiveRadius.observe(lat, lon, cacheDistance, neighbour, weatherData);
+            }
+        } catch (Exception e) {
+            log.warn("Error comparing observation for lat={}, lon={} with its neighbour: {}", lat, lon, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean shouldSample(CachedWeather hit) {
+        return adaptiveRadius.shouldSample(hit);
+    }
+
+    private double radiusKm(double lat, double lon) {
+        return adaptiveRadius.radiusKm(lat, lon, cacheDistance);
+    }
+}
@@ -0,0 +1,32 @@
+package com.weather_service.caching;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+class ReactiveScripts {
+
+    private ReactiveScripts() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Runs a script returning a flat array and hands back the raw reply, bulk strings as {@code byte[]} and
+     * integers as {@code Long}, the same shape the blocking template returns with a {@code null} result serializer.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static Mono<List<?>> executeRaw(ReactiveRedisTemplate<String, Object> template, RedisScript<List> script,
+                                    List<String> keys, List<String> args) {
+        RedisElementReader rawReader = RedisElementReader.from(RedisSerializer.byteArray());
+        Flux<Object> reply = template.execute(script, keys, args, RedisElementWriter.from(RedisSerializer.string()), rawReader);
+        return reply.collectList()
+                // Depending on the driver the array arrives as one element or element by element
+                .<List<?>>map(items -> items.size() == 1 && items.get(0) instanceof List<?> nested ? nested : items);
+    }
+}
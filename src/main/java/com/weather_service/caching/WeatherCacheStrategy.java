@@ -0,0 +1,61 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.Coordinates;
+import com.weather_service.model.WeatherData;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * How weather entries are keyed in Redis and how a request finds a usable entry.
+ * Selected with {@code weather.cache.strategy}.
+ */
+public interface WeatherCacheStrategy {
+
+    /**
+     * Redis value key an entry fetched for the given coordinates is stored under.
+     */
+    String key(double lat, double lon);
+
+    /**
+     * Makes a freshly stored value key findable. Called after the value has been written.
+     */
+    void index(double lat, double lon, String weatherKey, Duration ttl);
+
+    /**
+     * Finds the entry that should serve the given coordinates, or {@code null} on a miss.
+     */
+    CachedWeather find(double lat, double lon);
+
+    /**
+     * Non-blocking {@link #find}, completing empty on a miss.
+     */
+    Mono<CachedWeather> findReactive(double lat, double lon);
+
+    /**
+     * Looks up every coordinate in one pipelined Redis exchange. The result has one element per
+     * coordinate, in the same order, {@code null} for misses.
+     */
+    List<CachedWeather> findAll(List<Coordinates> coordinates);
+
+    /**
+     * Closest live entry within {@code radiusKm}, which may be further away than a regular lookup reaches.
+     * Only used while upstream is failing, when a distant answer beats none. {@code null} if there is none.
+     */
+    CachedWeather findFallback(double lat, double lon, double radiusKm);
+
+    /**
+     * Lets the strategy learn from a fresh upstream observation, called before it is stored.
+     */
+    default void observe(double lat, double lon, WeatherData weatherData) {
+    }
+
+    /**
+     * Whether a hit should be followed by a fresh observation at the requested point, which reaches
+     * {@link #observe} once it is stored.
+     */
+    default boolean shouldSample(CachedWeather hit) {
+        return false;
+    }
+}
@@ -0,0 +1,331 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis value serializer that stores {@link WeatherData} in a compact, versioned binary layout and
+ * everything else as typed JSON.
+ * <p>
+ * A binary value starts with {@link #MAGIC} and a version byte, followed by a varint bitmask of the
+ * fields that are set and the set fields in declaration order. Doubles are stored as their raw 8 bytes
+ * so nothing is rounded, integers and timestamps as zigzag varints, and condition descriptions that are
+ * one of the standard OpenWeatherMap ones as their index in {@link #DESCRIPTIONS}.
+ * <p>
+ * Reads accept both layouts, so entries written as JSON before the switch, or by an instance with
+ * {@code weather.cache.value-format: json}, stay readable until they expire.
+ */
+public class WeatherDataRedisSerializer implements RedisSerializer<Object> {
+
+    // Never the first byte of UTF-8 JSON
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION = 1;
+
+    // Version 1 dictionary, entries may only be appended. Changing or reordering one needs a new version
+    private static final List<String> DESCRIPTIONS = List.of(
+            "clear sky", "few clouds", "scattered clouds", "broken clouds", "overcast clouds",
+            "mist", "smoke", "haze", "sand/dust whirls", "fog", "sand", "dust", "volcanic ash", "squalls", "tornado",
+            "light rain", "moderate rain", "heavy intensity rain", "very heavy rain", "extreme rain",
+            "freezing rain", "light intensity shower rain", "shower rain", "heavy intensity shower rain",
+            "ragged shower rain",
+            "light intensity drizzle", "drizzle", "heavy intensity drizzle", "light intensity drizzle rain",
+            "drizzle rain", "heavy intensity drizzle rain", "shower rain and drizzle",
+            "heavy shower rain and drizzle", "shower drizzle",
+            "light snow", "snow", "heavy snow", "sleet", "light shower sleet", "shower sleet",
+            "light rain and snow", "rain and snow", "light shower snow", "shower snow", "heavy shower snow",
+            "thunderstorm with light rain", "thunderstorm with rain", "thunderstorm with heavy rain",
+            "light thunderstorm", "thunderstorm", "heavy thunderstorm", "ragged thunderstorm",
+            "thunderstorm with light drizzle", "thunderstorm with drizzle", "thunderstorm with heavy drizzle"
+    );
+    private static final Map<String, Integer> DESCRIPTION_CODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DESCRIPTIONS.size(); i++) {
+            DESCRIPTION_CODES.put(DESCRIPTIONS.get(i), i + 1);
+        }
+    }
+
+    private static final int LATITUDE = 1;
+    private static final int LONGITUDE = 1 << 1;
+    private static final int WEATHER_IDS = 1 << 2;
+    private static final int WEATHER_DESCRIPTIONS = 1 << 3;
+    private static final int TEMPERATURE = 1 << 4;
+    private static final int HUMIDITY = 1 << 5;
+    private static final int WIND_SPEED = 1 << 6;
+    private static final int CLOUDINESS = 1 << 7;
+    private static final int SUNRISE = 1 << 8;
+    private static final int SUNSET = 1 << 9;
+
+    private final RedisSerializer<Object> json;
+    private final boolean writeBinary;
+
+    /**
+     * @param json        serializer for values that are not {@link WeatherData}, and for reading legacy entries
+     * @param writeBinary whether {@link WeatherData} is written in the binary layout, or as JSON
+     */
+    public WeatherDataRedisSerializer(RedisSerializer<Object> json, boolean writeBinary) {
+        this.json = json;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (writeBinary && value instanceof WeatherData weatherData && isEncodable(weatherData)) {
+            return encode(weatherData);
+        }
+        return json.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes != null && bytes.length > 0 && bytes[0] == MAGIC) {
+            return decode(bytes);
+        }
+        return json.deserialize(bytes);
+    }
+
+    // Lists with null elements are rare enough to be left to JSON rather than given a marker of their own
+    private static boolean isEncodable(WeatherData weatherData) {
+        return (weatherData.getWeatherIds() == null || !weatherData.getWeatherIds().contains(null))
+                && (weatherData.getWeatherDescriptions() == null || !weatherData.getWeatherDescriptions().contains(null));
+    }
+
+    static byte[] encode(WeatherData weatherData) {
+        int fields = (weatherData.getLatitude() != null ? LATITUDE : 0)
+                | (weatherData.getLongitude() != null ? LONGITUDE : 0)
+                | (weatherData.getWeatherIds() != null ? WEATHER_IDS : 0)
+                | (weatherData.getWeatherDescriptions() != null ? WEATHER_DESCRIPTIONS : 0)
+                | (weatherData.getTemperature() != null ? TEMPERATURE : 0)
+                | (weatherData.getHumidity() != null ? HUMIDITY : 0)
+                | (weatherData.getWindSpeed() != null ? WIND_SPEED : 0)
+                | (weatherData.getCloudiness() != null ? CLOUDINESS : 0)
+                | (weatherData.getSunrise() != null ? SUNRISE : 0)
+                | (weatherData.getSunset() != null ? SUNSET : 0);
+
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeVarint(fields);
+        if ((fields & LATITUDE) != 0) {
+            out.writeDouble(weatherData.getLatitude());
+        }
+        if ((fields & LONGITUDE) != 0) {
+            out.writeDouble(weatherData.getLongitude());
+        }
+        if ((fields & WEATHER_IDS) != 0) {
+            out.writeVarint(weatherData.getWeatherIds().size());
+            for (Integer id : weatherData.getWeatherIds()) {
+                out.writeZigZag(id);
+            }
+        }
+        if ((fields & WEATHER_DESCRIPTIONS) != 0) {
+            out.writeVarint(weatherData.getWeatherDescriptions().size());
+            for (String description : weatherData.getWeatherDescriptions()) {
+                Integer code = DESCRIPTION_CODES.get(description);
+                if (code != null) {
+                    out.writeVarint(code);
+                } else {
+                    out.writeVarint(0);
+                    out.writeString(description);
+                }
+            }
+        }
+        if ((fields & TEMPERATURE) != 0) {
+            out.writeDouble(weatherData.getTemperature());
+        }
+        if ((fields & HUMIDITY) != 0) {
+            out.writeZigZag(weatherData.getHumidity());
+        }
+        if ((fields & WIND_SPEED) != 0) {
+            out.writeDouble(weatherData.getWindSpeed());
+        }
+        if ((fields & CLOUDINESS) != 0) {
+            out.writeZigZag(weatherData.getCloudiness());
+        }
+        if ((fields & SUNRISE) != 0) {
+            out.writeDateTime(weatherData.getSunrise());
+        }
+        if ((fields & SUNSET) != 0) {
+            out.writeDateTime(weatherData.getSunset());
+        }
+        return out.toByteArray();
+    }
+
+    static WeatherData decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        try {
+            in.readByte();
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported weather value version " + version);
+            }
+            int fields = (int) in.readVarint();
+            WeatherData weatherData = new WeatherData();
+            if ((fields & LATITUDE) != 0) {
+                weatherData.setLatitude(in.readDouble());
+            }
+            if ((fields & LONGITUDE) != 0) {
+                weatherData.setLongitude(in.readDouble());
+            }
+            if ((fields & WEATHER_IDS) != 0) {
+                int size = in.readSize();
+                List<Integer> weatherIds = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    weatherIds.add((int) in.readZigZag());
+                }
+                weatherData.setWeatherIds(weatherIds);
+            }
+            if ((fields & WEATHER_DESCRIPTIONS) != 0) {
+                int size = in.readSize();
+                List<String> weatherDescriptions = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    int code = (int) in.readVarint();
+                    weatherDescriptions.add(code == 0 ? in.readString() : DESCRIPTIONS.get(code - 1));
+                }
+                weatherData.setWeatherDescriptions(weatherDescriptions);
+            }
+            if ((fields & TEMPERATURE) != 0) {
+                weatherData.setTemperature(in.readDouble());
+            }
+            if ((fields & HUMIDITY) != 0) {
+                weatherData.setHumidity((int) in.readZigZag());
+            }
+            if ((fields & WIND_SPEED) != 0) {
+                weatherData.setWindSpeed(in.readDouble());
+            }
+            if ((fields & CLOUDINESS) != 0) {
+                weatherData.setCloudiness((int) in.readZigZag());
+            }
+            if ((fields & SUNRISE) != 0) {
+                weatherData.setSunrise(in.readDateTime());
+            }
+            if ((fields & SUNSET) != 0) {
+                weatherData.setSunset(in.readDateTime());
+            }
+            return weatherData;
+        } catch (IndexOutOfBoundsException | DateTimeException e) {
+            throw new SerializationException("Truncated or corrupt weather value", e);
+        }
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[96];
+        private int position;
+
+        private void writeByte(int value) {
+            if (position == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeZigZag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (bits >>> shift));
+            }
+        }
+
+        private void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            for (byte b : utf8) {
+                writeByte(b);
+            }
+        }
+
+        // LocalDateTime has no zone, UTC here only maps it to a number and back
+        private void writeDateTime(LocalDateTime value) {
+            writeZigZag(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarint(value.getNano());
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte readByte() {
+            return buffer[position++];
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in weather value");
+        }
+
+        private long readZigZag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        // Bounded by the bytes left, so a corrupt length cannot trigger a huge allocation
+        private int readSize() {
+            long size = readVarint();
+            if (size > buffer.length - position) {
+                throw new SerializationException("Malformed length in weather value");
+            }
+            return (int) size;
+        }
+
+        private double readDouble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (readByte() & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private String readString() {
+            int length = readSize();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private LocalDateTime readDateTime() {
+            long epochSecond = readZigZag();
+            return LocalDateTime.ofEpochSecond(epochSecond, (int) readVarint(), ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.weather_service.caching;
+
+import com.weather_service.metrics.WeatherMetrics;
+import com.weather_service.model.Coordinates;
+import com.weather_service.model.WeatherData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoSearchCommandArgs;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Geospatial index of cached weather entries, sharded by region.
+ * <p>
+ * The index is split by a geohash prefix of {@code weather.cache.geo.shard-precision} characters, so that in
+ * Redis Cluster the regions spread over the nodes instead of one key taking every lookup. A shard is the GEO key
+ * {@code weather:geo:{<prefix>}}, whose members are the plain value keys written through {@link StringRedisTemplate},
+ * and {@code weather:expiry:{<prefix>}}, scoring every member by its expiry time for {@link GeoIndexSweeper}.
+ * Value keys carry the same hash tag, so a shard and its values live in one slot. Shard prefixes are listed in
+ * {@code weather:shards} for the sweeper.
+ * <p>
+ * A lookup searches the shard for the closest members, then reads the first of them whose value still exists
+ * with a script that declares those members as its keys, as Redis Cluster requires. Both calls go to the node
+ * owning the shard's slot. A lookup whose circle crosses into neighbouring shards searches each of them and keeps
+ * the closest entry.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class WeatherGeoIndex {
+
+    public static final String SHARDS_KEY = "weather:shards";
+    private static final String GEO_PREFIX = "weather:geo:";
+    private static final String EXPIRY_PREFIX = "weather:expiry:";
+
+    /*
+     * Given value keys closest first, returns {position, value, pttl} of the first one that still exists, position
+     * counting from 1, or an empty reply when none does.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> FIRST_LIVE_SCRIPT = RedisScript.of("""
+            for i, key in ipairs(KEYS) do
+                local value = redis.call('GET', key)
+                if value then
+                    return {i, value, redis.call('PTTL', key)}
+                end
+            end
+            return {}
+            """, List.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final WeatherMetrics weatherMetrics;
+
+    // Dead members checked past the closest one before giving up, until the sweeper catches up
+    @Value("${weather.cache.lookup-candidates:3}")
+    private int lookupCandidates;
+    // 3 characters make cells of about 156 x 156 km at the equator, so a 1 km lookup nearly always stays in one
+    @Value("${weather.cache.geo.shard-precision:3}")
+    private int shardPrecision;
+
+    // Shards this instance already listed in SHARDS_KEY, so that key is written once per shard, not per entry
+    private final Set<String> listedShards = ConcurrentHashMap.newKeySet();
+
+    public static String geoKey(String shard) {
+        return GEO_PREFIX + "{" + shard + "}";
+    }
+
+    public static String expiryKey(String shard) {
+        return EXPIRY_PREFIX + "{" + shard + "}";
+    }
+
+    public String shardOf(double lat, double lon) {
+        return GeoShards.shardOf(lat, lon, shardPrecision);
+    }
+
+    /**
+     * Value key for an entry at the given coordinates, hash-tagged with its shard.
+     */
+    public String valueKey(double lat, double lon) {
+        return "weather:{" + shardOf(lat, lon) + "}:" + lat + ":" + lon;
+    }
+
+    public void add(double lat, double lon, String weatherKey, Duration ttl) {
+        String shard = shardOf(lat, lon);
+        stringRedisTemplate.opsForGeo().add(geoKey(shard), new Point(lon, lat), weatherKey);
+        stringRedisTemplate.opsForZSet().add(expiryKey(shard), weatherKey, System.currentTimeMillis() + ttl.toMillis());
+        if (listedShards.add(shard)) {
+            try {
+                stringRedisTemplate.opsForSet().add(SHARDS_KEY, shard);
+            } catch (RuntimeException e) {
+                listedShards.remove(shard);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Finds the closest live entry within {@code radiusKm}, in two round trips per shard the circle reaches, one
+     * when the shard has no member in it.
+     */
+    public CachedWeather findNearest(double lat, double lon, double radiusKm) {
+        CachedWeather closest = null;
+        for (String shard : GeoShards.shardsWithin(lat, lon, radiusKm, shardPrecision)) {
+            GeoResults<GeoLocation<String>> found = stringRedisTemplate.opsForGeo()
+                    .search(geoKey(shard), GeoReference.fromCoordinate(lon, lat), distance(radiusKm), searchArgs());
+            closest = closer(closest, found == null ? null : firstLive(found.getContent()));
+        }
+        return closest;
+    }
+
+    private CachedWeather firstLive(List<GeoResult<GeoLocation<String>>> candidates) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        // A null result serializer hands back the raw reply, the value is decoded with the template serializer
+        List<?> reply = redisTemplate.execute(FIRST_LIVE_SCRIPT, RedisSerializer.string(), null, memberKeys(candidates));
+        return reply == null ? null : toCachedWeather(candidates, reply);
+    }
+
+    /**
+     * Non-blocking {@link #findNearest}, completing empty when no live entry is within {@code radiusKm}.
+     * Neighbouring shards are searched concurrently.
+     */
+    public Mono<CachedWeather> findNearestReactive(double lat, double lon, double radiusKm) {
+        return Flux.fromIterable(GeoShards.shardsWithin(lat, lon, radiusKm, shardPrecision))
+                .flatMap(shard -> reactiveRedisTemplate.opsForGeo(RedisSerializationContext.string())
+                        .search(geoKey(shard), GeoReference.fromCoordinate(lon, lat), distance(radiusKm), searchArgs())
+                        .collectList()
+                        .flatMap(this::firstLiveReactive))
+                .reduce(WeatherGeoIndex::closer);
+    }
+
+    private Mono<CachedWeather> firstLiveReactive(List<GeoResult<GeoLocation<String>>> candidates) {
+        if (candidates.isEmpty()) {
+            return Mono.empty();
+        }
+        return ReactiveScripts.executeRaw(reactiveRedisTemplate, FIRST_LIVE_SCRIPT, memberKeys(candidates), List.of())
+                .mapNotNull(reply -> toCachedWeather(candidates, reply));
+    }
+
+    /**
+     * {@link #findNearest} for every coordinate. The lookups are issued together on the shared reactive
+     * connection, which writes them out without waiting for each reply, so the batch costs about one round trip
+     * per node involved. A pipeline would not work in Redis Cluster, where the shards sit on different nodes.
+     *
+     * @param radiusKm radius to search around a point, given its latitude and longitude
+     */
+    public List<CachedWeather> findNearestAll(List<Coordinates> coordinates, DoubleBinaryOperator radiusKm) {
+        List<Optional<CachedWeather>> results = Flux.fromIterable(coordinates)
+                .flatMapSequential(point -> findNearestReactive(point.getLat(), point.getLon(),
+                                radiusKm.applyAsDouble(point.getLat(), point.getLon()))
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty()))
+                .collectList()
+                .block();
+        // Reactor does not carry nulls, misses become null only once the batch is complete
+        return results == null ? List.of() : results.stream().map(found -> found.orElse(null)).toList();
+    }
+
+    private static Distance distance(double radiusKm) {
+        return new Distance(radiusKm, Metrics.KILOMETERS);
+    }
+
+    // Sorted and limited on the server, so the reply size does not depend on how many entries sit in the circle
+    private GeoSearchCommandArgs searchArgs() {
+        return GeoSearchCommandArgs.newGeoSearchArgs().includeDistance().includeCoordinates().sortAscending()
+                .limit(lookupCandidates);
+    }
+
+    // Members are value keys with the shard's hash tag, so they hash to the slot of the shard that returned them
+    private static List<String> memberKeys(List<GeoResult<GeoLocation<String>>> candidates) {
+        return candidates.stream().map(candidate -> candidate.getContent().getName()).toList();
+    }
+
+    private static CachedWeather closer(CachedWeather a, CachedWeather b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.distanceKm() <= b.distanceKm() ? a : b;
+    }
+
+    /**
+     * Decodes the reply for the candidates a search returned, or returns null when none of them was live.
+     */
+    private CachedWeather toCachedWeather(List<GeoResult<GeoLocation<String>>> candidates, List<?> reply) {
+        if (reply.isEmpty()) {
+            weatherMetrics.deadMembers(candidates.size());
+            return null;
+        }
+        int position = ((Long) reply.get(0)).intValue() - 1;
+        weatherMetrics.deadMembers(position);
+        GeoResult<GeoLocation<String>> candidate = candidates.get(position);
+        WeatherData weatherData = (WeatherData) redisTemplate.getValueSerializer().deserialize((byte[]) reply.get(1));
+        long expiresAtMillis = System.currentTimeMillis() + (Long) reply.get(2);
+        Point point = candidate.getContent().getPoint();
+        return new CachedWeather(candidate.getContent().getName(), weatherData, point.getY(), point.getX(),
+                candidate.getDistance().getValue(), expiresAtMillis);
+    }
+}
@@ -0,0 +1,147 @@
+package com.weather_service.caching;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * In-process L1 cache of deserialized {@link CachedWeather} entries in front of Redis.
+ * <p>
+ * Entries are keyed by the Redis value key ({@code weather:lat:lon}). A second map remembers which value key
+ * served a requested coordinate, so repeated lookups for hot coordinates are answered without any Redis call.
+ * An entry is only kept while it is fresh, stale entries are always read from Redis so they get refreshed.
+ * Writes are broadcast on {@link #INVALIDATION_CHANNEL} so other instances drop their copy of the key.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class WeatherNearCache implements MessageListener, MeterBinder {
+
+    public static final String INVALIDATION_CHANNEL = "weather:invalidate";
+    private static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${weather.cache.ttl:5}")
+    private Integer ttlMinutes;
+    @Value("${weather.cache.near.enabled:true}")
+    private boolean enabled;
+    @Value("${weather.cache.near.max-size:10000}")
+    private long maxSize;
+
+    private Cache<String, NearEntry> entries;
+    private Cache<String, String> locations;
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new FreshnessExpiry())
+                .recordStats()
+                .build();
+        locations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public CachedWeather get(double lat, double lon) {
+        if (!enabled) {
+            return null;
+        }
+        String key = locations.getIfPresent(locationKey(lat, lon));
+        return key != null ? get(key) : null;
+    }
+
+    public CachedWeather get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        NearEntry entry = entries.getIfPresent(key);
+        return entry != null ? entry.cachedWeather() : null;
+    }
+
+    /**
+     * Keeps the entry for as long as it stays fresh and remembers it served the given coordinates.
+     */
+    public void put(double lat, double lon, CachedWeather cachedWeather, Duration freshFor) {
+        if (!enabled || cachedWeather.weatherData() == null || freshFor.isNegative() || freshFor.isZero()) {
+            return;
+        }
+        entries.put(cachedWeather.key(), new NearEntry(cachedWeather, freshFor.toNanos()));
+        locations.put(locationKey(lat, lon), cachedWeather.key());
+    }
+
+    /**
+     * Drops the key locally and tells every other instance to do the same.
+     */
+    public void invalidate(String key) {
+        entries.invalidate(key);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, instanceId + SEPARATOR + key);
+        } catch (Exception e) {
+            log.warn("Failed to publish near cache invalidation for key {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(SEPARATOR);
+        if (separator < 0 || body.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+        String key = body.substring(separator + 1);
+        log.trace("Evicting near cache entry {} on remote invalidation", key);
+        entries.invalidate(key);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, entries, "weather.near.entries");
+        CaffeineCacheMetrics.monitor(registry, locations, "weather.near.locations");
+    }
+
+    static String locationKey(double lat, double lon) {
+        return "weather:" + lat + ":" + lon;
+    }
+
+    private record NearEntry(CachedWeather cachedWeather, long freshForNanos) {
+    }
+
+    private static class FreshnessExpiry implements Expiry<String, NearEntry> {
+
+        @Override
+        public long expireAfterCreate(String key, NearEntry entry, long currentTime) {
+            return entry.freshForNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, NearEntry entry, long currentTime, long currentDuration) {
+            return entry.freshForNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, NearEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
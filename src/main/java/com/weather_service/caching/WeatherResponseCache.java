@@ -0,0 +1,109 @@
+package com.weather_service.caching;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.weather_service.model.WeatherData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * JSON response bodies of served entries and their entity tags. Recently served bodies are kept, so a hit is
+ * written out as bytes instead of being serialized and hashed again.
+ * <p>
+ * Bodies are rendered with the application {@link ObjectMapper}, the one Spring MVC writes {@link WeatherData}
+ * with, and are keyed by entry key. A body is only reused while the entry still holds equal data, so a
+ * refreshed entry is rendered anew.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class WeatherResponseCache implements MeterBinder {
+
+    private static final int ETAG_BYTES = 16;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${weather.cache.ttl:5}")
+    private Integer ttlMinutes;
+    @Value("${weather.cache.near.render-responses:true}")
+    private boolean enabled;
+    @Value("${weather.cache.near.max-size:10000}")
+    private long maxSize;
+
+    private Cache<String, CachedBody> bodies;
+
+    /**
+     * A response body and its strong entity tag, which changes whenever a single byte of the body does.
+     */
+    public record Rendered(byte[] json, String eTag) {
+    }
+
+    @PostConstruct
+    public void init() {
+        bodies = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The JSON body for the entry's data, or {@code null} when the data cannot be rendered, in which case the
+     * caller should let Spring MVC write the object. When disabled every call renders and hashes anew.
+     */
+    public Rendered render(String key, WeatherData weatherData) {
+        if (key == null || weatherData == null) {
+            return null;
+        }
+        if (enabled) {
+            CachedBody cached = bodies.getIfPresent(key);
+            if (cached != null && cached.weatherData().equals(weatherData)) {
+                return cached.rendered();
+            }
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(weatherData);
+            Rendered rendered = new Rendered(json, eTag(json));
+            if (enabled) {
+                bodies.put(key, new CachedBody(weatherData, rendered));
+            }
+            return rendered;
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to render response for key {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    // 128 bits of SHA-256 over the body, the same on every instance that renders the same bytes
+    private static String eTag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, ETAG_BYTES) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, bodies, "weather.near.responses");
+    }
+
+    private record CachedBody(WeatherData weatherData, Rendered rendered) {
+    }
+}
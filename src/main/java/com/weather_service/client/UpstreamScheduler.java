@@ -0,0 +1,261 @@
+package com.weather_service.client;
+
+import com.weather_service.handler.UpstreamException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps upstream calls within the provider's per-minute quota.
+ * <p>
+ * Calls take a token from a bucket that refills at {@code weather.upstream.quota.calls-per-minute} and holds at
+ * most {@code burst} tokens. Without a token a call queues, user requests ahead of background refreshes and
+ * otherwise in arrival order. A call that could not get a token within its priority's max wait is rejected
+ * right away with {@link UpstreamException.Reason#THROTTLED}, so callers can fall back to a cached entry
+ * instead of timing out. Reactive calls reserve their token instead of queueing and wait for it on a timer,
+ * so a throttled burst holds no threads. A 429 from the provider empties the bucket.
+ */
+@Log4j2
+@Component
+public class UpstreamScheduler implements MeterBinder {
+
+    public enum Priority {
+        USER,
+        REFRESH
+    }
+
+    @Value("${weather.upstream.quota.enabled:true}")
+    private boolean enabled;
+    @Value("${weather.upstream.quota.calls-per-minute:60}")
+    private int callsPerMinute;
+    @Value("${weather.upstream.quota.burst:10}")
+    private int burst;
+    @Value("${weather.upstream.quota.user-max-wait-ms:1000}")
+    private long userMaxWaitMs;
+    @Value("${weather.upstream.quota.refresh-max-wait-ms:30000}")
+    private long refreshMaxWaitMs;
+
+    // Not synchronized, a monitor would pin virtual threads waiting for a token
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+            Comparator.comparing(Ticket::priority).thenComparingLong(Ticket::sequence));
+    private final Map<Priority, AtomicInteger> queued = new EnumMap<>(Priority.class);
+    private final Map<Priority, AtomicLong> throttled = new EnumMap<>(Priority.class);
+
+    private long sequence;
+    private double tokens;
+    private long refilledAtNanos;
+
+    @PostConstruct
+    public void init() {
+        for (Priority priority : Priority.values()) {
+            queued.put(priority, new AtomicInteger());
+            throttled.put(priority, new AtomicLong());
+        }
+        tokens = burst;
+        refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Runs {@code call} once a token is available.
+     */
+    public <T> T call(Priority priority, Supplier<T> call) {
+        acquire(priority);
+        try {
+            return call.get();
+        } catch (UpstreamException e) {
+            onFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking {@link #call}, waiting for the token on a timer rather than a thread.
+     */
+    public <T> Mono<T> callReactive(Priority priority, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> reserve(priority))
+                .then(Mono.defer(call))
+                .doOnError(UpstreamException.class, this::onFailure);
+    }
+
+    /**
+     * Takes a token ahead of its refill and completes once it has been refilled, behind the calls of the same or
+     * higher priority queued in {@link #acquire}. A reservation cancelled while waiting gives its token back.
+     * <p>
+     * Errors with {@link UpstreamException.Reason#THROTTLED} if the token would not be refilled in time.
+     */
+    Mono<Void> reserve(Priority priority) {
+        long waitNanos;
+        lock.lock();
+        try {
+            refill();
+            if (queue.isEmpty() && tokens >= 1) {
+                tokens--;
+                return Mono.empty();
+            }
+            long ahead = queue.stream().filter(ticket -> ticket.priority().compareTo(priority) <= 0).count();
+            waitNanos = (long) Math.ceil((ahead + 1 - tokens) * nanosPerToken());
+            if (waitNanos > maxWaitNanos(priority)) {
+                return Mono.error(throttled(priority, ahead));
+            }
+            // Below zero until refilled, so later calls wait behind this one
+            tokens--;
+        } finally {
+            lock.unlock();
+        }
+        AtomicInteger depth = queued.get(priority);
+        depth.incrementAndGet();
+        return Mono.delay(Duration.ofNanos(waitNanos))
+                .then()
+                .doOnCancel(this::release)
+                .doFinally(signal -> depth.decrementAndGet());
+    }
+
+    /**
+     * Takes a token, waiting behind earlier calls of the same or higher priority.
+     *
+     * @throws UpstreamException with {@link UpstreamException.Reason#THROTTLED} if no token is available in time
+     */
+    void acquire(Priority priority) {
+        if (!enabled) {
+            return;
+        }
+        long maxWaitNanos = maxWaitNanos(priority);
+        lock.lock();
+        try {
+            refill();
+            if (queue.isEmpty() && tokens >= 1) {
+                tokens--;
+                return;
+            }
+            // Every call queued ahead needs its token first, rejecting now beats failing at the deadline
+            long ahead = queue.stream().filter(ticket -> ticket.priority().compareTo(priority) <= 0).count();
+            if ((ahead + 1 - tokens) * nanosPerToken() > maxWaitNanos) {
+                throw throttled(priority, ahead);
+            }
+
+            Ticket ticket = new Ticket(priority, sequence++);
+            queue.add(ticket);
+            queued.get(priority).incrementAndGet();
+            try {
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (true) {
+                    refill();
+                    if (queue.peek() == ticket && tokens >= 1) {
+                        tokens--;
+                        return;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw throttled(priority, ahead);
+                    }
+                    long untilToken = tokens >= 1 ? remaining : (long) Math.ceil((1 - tokens) * nanosPerToken());
+                    changed.awaitNanos(Math.min(remaining, untilToken));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw throttled(priority, ahead);
+            } finally {
+                queue.remove(ticket);
+                queued.get(priority).decrementAndGet();
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            tokens = Math.min(burst, tokens + 1);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onFailure(UpstreamException e) {
+        if (e.getReason() != UpstreamException.Reason.THROTTLED || e.getCause() == null) {
+            return;
+        }
+        // The provider says the quota is used up, stop sending until the bucket refills
+        lock.lock();
+        try {
+            refill();
+            tokens = Math.min(tokens, 0);
+            log.warn("Weather provider quota exceeded, pausing upstream calls");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAtNanos) / nanosPerToken());
+        refilledAtNanos = now;
+    }
+
+    private long maxWaitNanos(Priority priority) {
+        return TimeUnit.MILLISECONDS.toNanos(priority == Priority.USER ? userMaxWaitMs : refreshMaxWaitMs);
+    }
+
+    private double nanosPerToken() {
+        return TimeUnit.MINUTES.toNanos(1) / (double) callsPerMinute;
+    }
+
+    private UpstreamException throttled(Priority priority, long ahead) {
+        throttled.get(priority).incrementAndGet();
+        return new UpstreamException(UpstreamException.Reason.THROTTLED,
+                priority + " call rejected with " + ahead + " queued ahead", null);
+    }
+
+    /**
+     * Calls waiting for a token, by priority.
+     */
+    public int queueDepth(Priority priority) {
+        return queued.get(priority).get();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("weather.upstream.queue.depth", queued.get(priority), AtomicInteger::get)
+                    .description("Upstream calls waiting for quota")
+                    .tag("priority", tag)
+                    .register(registry);
+            FunctionCounter.builder("weather.upstream.throttled", throttled.get(priority), AtomicLong::get)
+                    .description("Upstream calls rejected because the quota would not allow them in time")
+                    .tag("priority", tag)
+                    .register(registry);
+        }
+    }
+
+    private record Ticket(Priority priority, long sequence) {
+    }
+}
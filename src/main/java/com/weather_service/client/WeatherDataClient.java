@@ -1,14 +1,23 @@
 package com.weather_service.client;
 
+import com.weather_service.handler.UpstreamException;
+import com.weather_service.metrics.WeatherMetrics;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.netty.channel.ConnectTimeoutException;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
 
 @Log4j2
 @Component
@@ -20,14 +29,31 @@ public class WeatherDataClient {
     @Value("${openweathermap.api.key}")
     private String apiKey;
 
+    // Whole call including the wait for a pooled connection and reading the body
+    @Value("${weather.upstream.deadline-ms:3000}")
+    private long deadlineMs;
+
     private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final WeatherMetrics weatherMetrics;
 
     @Autowired
-    public WeatherDataClient(WebClient webClient) {
+    public WeatherDataClient(WebClient webClient, CircuitBreaker upstreamCircuitBreaker, WeatherMetrics weatherMetrics) {
         this.webClient = webClient;
+        this.circuitBreaker = upstreamCircuitBreaker;
+        this.weatherMetrics = weatherMetrics;
+    }
+
+    public byte[] getWeatherData(double lat, double lon) {
+        return getWeatherDataReactive(lat, lon).block();
     }
 
-    public String getWeatherData(double lat, double lon) {
+    /**
+     * Upstream response body without blocking the caller, empty if upstream answered without a body.
+     * The body is kept as raw bytes for the streaming parser, it is never decoded into a string.
+     * Failures are signalled as {@link UpstreamException}, right away while the circuit breaker is open.
+     */
+    public Mono<byte[]> getWeatherDataReactive(double lat, double lon) {
         URI uri = UriComponentsBuilder.fromUriString(weatherApiUrl)
                 .queryParam("lat", lat)
                 .queryParam("lon", lon)
@@ -36,11 +62,43 @@ public class WeatherDataClient {
                 .build()
                 .toUri();
 
-        return webClient.get()
+        Mono<byte[]> call = webClient.get()
                 .uri(uri)
                 .retrieve()
-                .bodyToMono(String.class)
-                .onErrorResume(e -> Mono.empty())
-                .block();
+                .bodyToMono(byte[].class)
+                .timeout(Duration.ofMillis(deadlineMs))
+                .onErrorMap(e -> !(e instanceof UpstreamException), WeatherDataClient::toUpstreamException)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .onErrorMap(CallNotPermittedException.class, e -> new UpstreamException(
+                        UpstreamException.Reason.UNAVAILABLE, e.getMessage(), e));
+        // Calls the open breaker rejects are timed too, they show up as the unavailable outcome
+        return weatherMetrics.timeUpstream(call);
+    }
+
+    static UpstreamException toUpstreamException(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            UpstreamException.Reason reason = response.getStatusCode().value() == 429
+                    ? UpstreamException.Reason.THROTTLED
+                    : response.getStatusCode().is4xxClientError()
+                    ? UpstreamException.Reason.CLIENT_ERROR
+                    : UpstreamException.Reason.SERVER_ERROR;
+            return new UpstreamException(reason, "status " + response.getStatusCode().value(), e);
+        }
+        if (isTimeout(e)) {
+            return new UpstreamException(UpstreamException.Reason.TIMEOUT, e.toString(), e);
+        }
+        return new UpstreamException(UpstreamException.Reason.SERVER_ERROR, e.toString(), e);
+    }
+
+    // Connect, response and pool acquire timeouts arrive wrapped, the deadline as a plain TimeoutException
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException
+                    || cause instanceof io.netty.handler.timeout.TimeoutException
+                    || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
     }
 }
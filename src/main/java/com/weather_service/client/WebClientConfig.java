@@ -1,15 +1,99 @@
 package com.weather_service.client;
 
+import com.weather_service.handler.UpstreamException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
 
+    public static final String UPSTREAM = "openweathermap";
+
+    @Value("${weather.upstream.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+    @Value("${weather.upstream.response-timeout-ms:2000}")
+    private long responseTimeoutMs;
+    @Value("${weather.upstream.pool.max-connections:50}")
+    private int maxConnections;
+    @Value("${weather.upstream.pool.pending-acquire-max:100}")
+    private int pendingAcquireMax;
+    @Value("${weather.upstream.pool.pending-acquire-timeout-ms:500}")
+    private long pendingAcquireTimeoutMs;
+    @Value("${weather.upstream.pool.max-idle-ms:30000}")
+    private long maxIdleMs;
+    @Value("${weather.upstream.pool.max-life-ms:300000}")
+    private long maxLifeMs;
+
+    @Value("${weather.upstream.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+    @Value("${weather.upstream.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+    @Value("${weather.upstream.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+    @Value("${weather.upstream.circuit-breaker.open-ms:10000}")
+    private long openMs;
+    @Value("${weather.upstream.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    // Bounded, so a slow upstream makes callers wait for a connection briefly and then fail, instead of piling up
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider() {
+        return ConnectionProvider.builder(UPSTREAM)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleMs))
+                .build();
+    }
+
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(ConnectionProvider upstreamConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
         return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry() {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(Duration.ofMillis(openMs))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                // A rejected request or a used-up quota says nothing about upstream health
+                .recordException(e -> e instanceof UpstreamException upstream
+                        && upstream.getReason() != UpstreamException.Reason.CLIENT_ERROR
+                        && upstream.getReason() != UpstreamException.Reason.THROTTLED)
+                .build();
+        return CircuitBreakerRegistry.of(config);
+    }
+
+    @Bean
+    public CircuitBreaker upstreamCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return circuitBreakerRegistry.circuitBreaker(UPSTREAM);
+    }
+
+    @Bean
+    public TaggedCircuitBreakerMetrics circuitBreakerMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry);
+    }
 }
@@ -1,11 +1,16 @@
 package com.weather_service.controller;
 
+import com.weather_service.caching.WeatherResponseCache;
+import com.weather_service.model.BatchWeatherResult;
+import com.weather_service.model.Coordinates;
 import com.weather_service.model.WeatherData;
+import com.weather_service.service.WeatherEntry;
 import com.weather_service.service.WeatherService;
 import com.weather_service.swagger.DescriptionVariables;
 import com.weather_service.swagger.HTTPResponseMessages;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,11 +18,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 @Log4j2
 @RestController
@@ -27,21 +41,71 @@ import org.springframework.web.bind.annotation.RestController;
 public class WeatherController {
 
     private final WeatherService weatherService;
+    private final WeatherResponseCache weatherResponseCache;
 
-    @Operation(summary = "Gets weather data")
+    @Operation(summary = "Gets weather data",
+            description = "Responses carry an ETag and may be reused by the caller for max-age seconds, revalidate with If-None-Match")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = HTTPResponseMessages.HTTP_200,
                     content = @Content(schema = @Schema(implementation = WeatherData.class))),
+            @ApiResponse(responseCode = "304", description = HTTPResponseMessages.HTTP_304, content = @Content),
             @ApiResponse(responseCode = "400", description = HTTPResponseMessages.HTTP_400, content = @Content),
             @ApiResponse(responseCode = "403", description = HTTPResponseMessages.HTTP_403, content = @Content),
             @ApiResponse(responseCode = "404", description = HTTPResponseMessages.HTTP_404, content = @Content),
             @ApiResponse(responseCode = "500", description = HTTPResponseMessages.HTTP_500, content = @Content)
     })
     @GetMapping
-    public ResponseEntity<WeatherData> getWeather(
+    public ResponseEntity<?> getWeather(
+            @Parameter(name = "lat", description = "latitude", example = "64.049075", required = true) @RequestParam Double lat,
+            @Parameter(name = "lon", description = "longitude", example = "-16.181418", required = true) @RequestParam Double lon,
+            WebRequest request) {
+        log.debug("Getting weather data");
+        WeatherEntry entry = weatherService.getWeatherEntry(lat, lon);
+        // Private: responses are only served to authenticated callers, shared caches must not hand them out
+        CacheControl cacheControl = CacheControl.maxAge(entry.maxAge()).cachePrivate();
+        WeatherResponseCache.Rendered rendered = weatherResponseCache.render(entry.key(), entry.weatherData());
+        if (rendered == null) {
+            return ResponseEntity.ok().cacheControl(cacheControl).body(entry.weatherData());
+        }
+        if (request.checkNotModified(rendered.eTag())) {
+            // Status and ETag are already set on the response, nothing is written
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+
+        // Already the JSON Spring MVC would write for the object, copied to the response as is
+        return ResponseEntity.ok().eTag(rendered.eTag()).cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON).body(rendered.json());
+    }
+
+    @Operation(summary = "Gets weather data without holding a request thread while waiting on Redis or upstream")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = HTTPResponseMessages.HTTP_200,
+                    content = @Content(schema = @Schema(implementation = WeatherData.class))),
+            @ApiResponse(responseCode = "400", description = HTTPResponseMessages.HTTP_400, content = @Content),
+            @ApiResponse(responseCode = "403", description = HTTPResponseMessages.HTTP_403, content = @Content),
+            @ApiResponse(responseCode = "404", description = HTTPResponseMessages.HTTP_404, content = @Content),
+            @ApiResponse(responseCode = "500", description = HTTPResponseMessages.HTTP_500, content = @Content)
+    })
+    @GetMapping("/reactive")
+    public Mono<ResponseEntity<WeatherData>> getWeatherReactive(
             @Parameter(name = "lat", description = "latitude", example = "64.049075", required = true) @RequestParam Double lat,
             @Parameter(name = "lon", description = "longitude", example = "-16.181418", required = true) @RequestParam Double lon) {
-        log.info("Getting weather data");
-        return ResponseEntity.ok(weatherService.getWeatherData(lat, lon));
+        log.debug("Getting weather data reactively");
+        return weatherService.getWeatherDataReactive(lat, lon).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Gets weather data for a list of coordinates",
+            description = "Results are returned in request order, a failed item carries an error instead of weather data")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = HTTPResponseMessages.HTTP_200,
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatchWeatherResult.class)))),
+            @ApiResponse(responseCode = "400", description = HTTPResponseMessages.HTTP_400, content = @Content),
+            @ApiResponse(responseCode = "403", description = HTTPResponseMessages.HTTP_403, content = @Content),
+            @ApiResponse(responseCode = "500", description = HTTPResponseMessages.HTTP_500, content = @Content)
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchWeatherResult>> getWeatherBatch(@RequestBody List<Coordinates> coordinates) {
+        log.debug("Getting weather data for {} coordinates", coordinates.size());
+        return ResponseEntity.ok(weatherService.getWeatherData(coordinates));
     }
 }
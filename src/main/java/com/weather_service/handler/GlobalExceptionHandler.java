@@ -23,6 +23,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
     }
 
+    @ExceptionHandler(UpstreamException.class)
+    public ResponseEntity<String> handleUpstreamException(UpstreamException e) {
+        log.error("Upstream call failed ({}): {}", e.getReason(), e.getDetail());
+        return ResponseEntity.status(e.getReason().getStatus()).body(e.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGenericException(Exception e) {
         log.error("An unexpected error occurred: {}", e.getMessage());
@@ -0,0 +1,35 @@
+package com.weather_service.handler;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A call to the weather provider failed. The reason decides the status the caller sees.
+ */
+@Getter
+public class UpstreamException extends RuntimeException {
+
+    private final Reason reason;
+    // What went wrong upstream, for logs only
+    private final String detail;
+
+    public UpstreamException(Reason reason, String detail, Throwable cause) {
+        super(reason.getMessage(), cause);
+        this.reason = reason;
+        this.detail = detail;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Reason {
+        TIMEOUT(HttpStatus.GATEWAY_TIMEOUT, "Weather provider did not respond in time."),
+        CLIENT_ERROR(HttpStatus.BAD_GATEWAY, "Weather provider rejected the request."),
+        SERVER_ERROR(HttpStatus.BAD_GATEWAY, "Weather provider failed to respond."),
+        UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Weather provider is temporarily unavailable."),
+        THROTTLED(HttpStatus.SERVICE_UNAVAILABLE, "Weather provider quota is used up, try again shortly.");
+
+        private final HttpStatus status;
+        private final String message;
+    }
+}
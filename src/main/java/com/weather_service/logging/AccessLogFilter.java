@@ -0,0 +1,104 @@
+package com.weather_service.logging;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.message.StringMapMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sampled access log, one key/value line per logged request on the {@code com.weather_service.access} logger.
+ * <p>
+ * Only a fraction of ordinary requests is written, server errors and slow requests always are. The sampling
+ * decision is made before anything is formatted, so requests that are not logged cost a random number.
+ */
+@Log4j2(topic = "com.weather_service.access")
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    @Value("${weather.access-log.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${weather.access-log.slow-ms:1000}")
+    private long slowMs;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Reactive handlers complete after this thread returns, log once the response is done
+                request.getAsyncContext().addListener(new CompletionListener(request, response, startNanos));
+            } else {
+                record(request, response.getStatus(), startNanos);
+            }
+        }
+    }
+
+    void record(HttpServletRequest request, int status, long startNanos) {
+        long durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        if (!log.isInfoEnabled() || !shouldLog(status, durationMicros)) {
+            return;
+        }
+        log.info(new StringMapMessage()
+                .with("method", request.getMethod())
+                .with("path", request.getRequestURI())
+                .with("status", status)
+                .with("durationUs", durationMicros)
+                .with("sampled", status < 500 && durationMicros < slowMs * 1000));
+    }
+
+    boolean shouldLog(int status, long durationMicros) {
+        return status >= 500
+                || durationMicros >= slowMs * 1000
+                || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private class CompletionListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long startNanos;
+
+        CompletionListener(HttpServletRequest request, HttpServletResponse response, long startNanos) {
+            this.request = request;
+            this.response = response;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, response.getStatus(), startNanos);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.weather_service.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier, when request handling runs on virtual threads.
+ * <p>
+ * A virtual thread that parks inside a {@code synchronized} block or a native frame keeps its carrier, so a few
+ * of them stall every other request. The blocking paths of a request, the {@code WeatherDataClient} call and the
+ * {@code RedisTemplate} calls on the shared Lettuce connection, should only ever wait on futures, which unmount.
+ * This listens to the JDK's {@code jdk.VirtualThreadPinned} event in-process, logs the frames where a thread was
+ * pinned for at least {@code weather.virtual-threads.pinned-threshold-ms} and counts it in
+ * {@code weather.virtual.pinned}, so a library upgrade that brings a monitor back into one of those paths shows up.
+ */
+@Log4j2
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinnedThreadMonitor implements MeterBinder {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    @Value("${weather.virtual-threads.pinned-threshold-ms:20}")
+    private long thresholdMs;
+
+    private final AtomicLong pinned = new AtomicLong();
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    /**
+     * Pinned waits seen since startup.
+     */
+    public long pinnedCount() {
+        return pinned.get();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.incrementAndGet();
+        log.warn("Virtual thread pinned for {} us at {}", event.getDuration().toNanos() / 1000, frames(event.getStackTrace()));
+    }
+
+    private static String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        // The top is the JDK parking the thread, keep only the last of those frames, the lock or wait it was in
+        int first = 0;
+        while (first < frames.size() - 1 && isJdk(frames.get(first + 1))) {
+            first++;
+        }
+        return frames.subList(first, frames.size()).stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+    }
+
+    private static boolean isJdk(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("weather.virtual.pinned", pinned, AtomicLong::get)
+                .description("Virtual threads that blocked while pinned to their carrier thread")
+                .register(registry);
+    }
+}
@@ -0,0 +1,156 @@
+package com.weather_service.metrics;
+
+import com.weather_service.caching.CachedWeather;
+import com.weather_service.handler.UpstreamException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Meters for each stage of serving a request: cache lookups and their outcome, Redis round trips,
+ * upstream calls and parsing.
+ * <p>
+ * Timers publish percentile histograms, so p99 can be computed and alerted on across instances in
+ * Prometheus. The hit distance uses fixed buckets around the usual cache distances instead.
+ */
+@Component
+public class WeatherMetrics {
+
+    private static final String LOOKUPS = "weather.cache.lookups";
+
+    private final MeterRegistry registry;
+
+    private final Counter nearHits;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter fallbacks;
+    private final Counter deadMembers;
+    private final DistributionSummary hitDistance;
+    private final Timer parseTimer;
+    private final Map<String, Timer> redisTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> upstreamTimers = new ConcurrentHashMap<>();
+
+    public WeatherMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        nearHits = lookups("near_hit");
+        hits = lookups("hit");
+        misses = lookups("miss");
+        fallbacks = lookups("fallback");
+        deadMembers = Counter.builder("weather.cache.dead.members")
+                .description("Geo index members skipped because their value had already expired")
+                .register(registry);
+        hitDistance = DistributionSummary.builder("weather.cache.hit.distance")
+                .description("Distance between the requested point and the cache entry that served it")
+                .baseUnit("kilometers")
+                .serviceLevelObjectives(0.1, 0.25, 0.5, 0.75, 1, 2, 5, 10, 25)
+                .register(registry);
+        parseTimer = Timer.builder("weather.upstream.parse")
+                .description("Parsing an upstream response")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofMillis(50))
+                .register(registry);
+    }
+
+    private Counter lookups(String result) {
+        return Counter.builder(LOOKUPS)
+                .description("Cache lookups by result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public void nearHit() {
+        nearHits.increment();
+    }
+
+    public void hit(CachedWeather cachedWeather) {
+        hits.increment();
+        hitDistance.record(cachedWeather.distanceKm());
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    /**
+     * An entry served from beyond the cache distance because upstream failed.
+     */
+    public void fallback(CachedWeather cachedWeather) {
+        fallbacks.increment();
+        hitDistance.record(cachedWeather.distanceKm());
+    }
+
+    public void deadMembers(long count) {
+        if (count > 0) {
+            deadMembers.increment(count);
+        }
+    }
+
+    public <T> T timeRedis(String operation, Supplier<T> call) {
+        return redisTimer(operation).record(call);
+    }
+
+    public void timeRedis(String operation, Runnable call) {
+        redisTimer(operation).record(call);
+    }
+
+    public <T> Mono<T> timeRedis(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call.doFinally(signal -> sample.stop(redisTimer(operation)));
+        });
+    }
+
+    /**
+     * Times the call from subscription until it completes, tagged with how it ended.
+     */
+    public <T> Mono<T> timeUpstream(Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call
+                    .doOnSuccess(value -> sample.stop(upstreamTimer(value != null ? "success" : "empty")))
+                    .doOnError(e -> sample.stop(upstreamTimer(outcome(e))))
+                    .doOnCancel(() -> sample.stop(upstreamTimer("cancelled")));
+        });
+    }
+
+    public <T> T timeParse(Supplier<T> parse) {
+        return parseTimer.record(parse);
+    }
+
+    private Timer redisTimer(String operation) {
+        return redisTimers.computeIfAbsent(operation, key -> Timer.builder("weather.redis.requests")
+                .description("Redis round trips by operation")
+                .tag("operation", key)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(50_000))
+                .maximumExpectedValue(Duration.ofSeconds(2))
+                .register(registry));
+    }
+
+    private Timer upstreamTimer(String outcome) {
+        return upstreamTimers.computeIfAbsent(outcome, key -> Timer.builder("weather.upstream.requests")
+                .description("Calls to the weather provider by outcome")
+                .tag("outcome", key)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry));
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof UpstreamException upstream) {
+            return upstream.getReason().name().toLowerCase(Locale.ROOT);
+        }
+        return "error";
+    }
+}
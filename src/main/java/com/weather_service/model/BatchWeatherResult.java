@@ -0,0 +1,45 @@
+package com.weather_service.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchWeatherResult {
+
+    @Schema(description = "Requested latitude", example = "64.049075")
+    private Double lat;
+
+    @Schema(description = "Requested longitude", example = "-16.181418")
+    private Double lon;
+
+    @Schema(description = "Weather data, absent if the item failed")
+    private WeatherData weatherData;
+
+    @Schema(description = "Why the item failed, absent on success", example = "No weather data found.")
+    private String error;
+
+    public static BatchWeatherResult success(Coordinates coordinates, WeatherData weatherData) {
+        return new BatchWeatherResult(lat(coordinates), lon(coordinates), weatherData, null);
+    }
+
+    /**
+     * @param coordinates the requested item, {@code null} for a null element of the batch, which leaves lat and lon out
+     */
+    public static BatchWeatherResult failure(Coordinates coordinates, String error) {
+        return new BatchWeatherResult(lat(coordinates), lon(coordinates), null, error);
+    }
+
+    private static Double lat(Coordinates coordinates) {
+        return coordinates != null ? coordinates.getLat() : null;
+    }
+
+    private static Double lon(Coordinates coordinates) {
+        return coordinates != null ? coordinates.getLon() : null;
+    }
+}
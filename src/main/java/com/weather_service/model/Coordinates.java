@@ -0,0 +1,22 @@
+package com.weather_service.model;
+
+import com.weather_service.swagger.DescriptionVariables;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.Range;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Coordinates {
+
+    @Schema(description = "Latitude of location", example = "64.049075")
+    @Range(min = -90, max = 90, message = DescriptionVariables.LATITUDE_RANGE)
+    private Double lat;
+
+    @Schema(description = "Longitude of location", example = "-16.181418")
+    @Range(min = -180, max = 180, message = DescriptionVariables.LONGITUDE_RANGE)
+    private Double lon;
+}
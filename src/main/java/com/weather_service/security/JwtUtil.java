@@ -56,11 +56,18 @@ public class JwtUtil {
         return expiration.before(new Date());
     }
 
+    /**
+     * Parses and verifies the token once. Returns {@code null} if it is past its expiry and throws if it is
+     * not a valid token.
+     */
+    public Claims validateToken(String token) {
+        Claims claims = getClaims(token, Function.identity());
+        return claims.getExpiration().before(new Date()) ? null : claims;
+    }
+
     public String validateTokenAndGetUsername(String token) {
-        if (isTokenExpired(token)) {
-            return null;
-        }
-        return getClaims(token, Claims::getSubject);
+        Claims claims = validateToken(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     private PrivateKey loadPrivateKey() throws NoSuchAlgorithmException, InvalidKeySpecException {
@@ -20,7 +20,9 @@ public class SecurityConfig {
     private static final String[] WHITELIST_URLS = {
             "/api/auth/**",
             "/swagger-ui/**",
-            "/v3/api-docs/**"
+            "/v3/api-docs/**",
+            "/actuator/health/liveness",
+            "/actuator/health/readiness"
     };
 
     @Bean
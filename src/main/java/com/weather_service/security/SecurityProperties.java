@@ -1,5 +1,6 @@
 package com.weather_service.security;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.Data;
@@ -22,4 +23,17 @@ public class SecurityProperties {
 
     @Positive
     private long tokenExpiration;
+
+    @Valid
+    private TokenCache tokenCache = new TokenCache();
+
+    @Data
+    public static class TokenCache {
+
+        // Verified tokens are remembered until they expire, so a reused token is only verified once
+        private boolean enabled = true;
+
+        @Positive
+        private long maxSize = 10_000;
+    }
 }
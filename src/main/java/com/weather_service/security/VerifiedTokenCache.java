@@ -0,0 +1,104 @@
+package com.weather_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers tokens whose signature was already verified, together with the user they resolved to.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token, so raw tokens are never held, and expire at the
+ * token's own expiry. A client reusing one token pays for RSA verification and the user lookup once.
+ * Changes to a user's authorities apply to tokens verified before the change once those tokens expire.
+ */
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final JwtUtil jwtUtil;
+    private final UserDetailsService userDetailsService;
+    private final SecurityProperties securityProperties;
+
+    private Cache<String, VerifiedToken> tokens;
+
+    @PostConstruct
+    public void init() {
+        tokens = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getTokenCache().getMaxSize())
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The user the token belongs to. Throws if the token is invalid or expired, or its user is unknown.
+     */
+    public UserDetails authenticate(String token) {
+        if (!securityProperties.getTokenCache().isEnabled()) {
+            return verify(token).userDetails();
+        }
+        // Concurrent first requests with the same token wait for a single verification
+        return tokens.get(digest(token), digest -> verify(token)).userDetails();
+    }
+
+    private VerifiedToken verify(String token) {
+        Claims claims = jwtUtil.validateToken(token);
+        if (claims == null) {
+            throw new CredentialsExpiredException("Token expired");
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        return new VerifiedToken(userDetails, claims.getExpiration().getTime());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, tokens, "security.verified.tokens");
+    }
+
+    private record VerifiedToken(UserDetails userDetails, long expiresAtMillis) {
+    }
+
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.weather_service.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs cache refreshes off the request path, at most one per cache key across all instances.
+ * <p>
+ * A local set stops the same instance from queueing a key twice, and a short-lived Redis lock
+ * ({@code weather:refresh:<key>}) stops other instances from refreshing it at the same time.
+ * The lock is left to expire rather than released, so a key that was just refreshed is not refreshed again.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class BackgroundRefresher {
+
+    private static final String LOCK_PREFIX = "weather:refresh:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Value("${weather.refresh.threads:4}")
+    private int threads;
+    @Value("${weather.refresh.lock-ttl-ms:30000}")
+    private long lockTtlMs;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        // Still a fixed pool on virtual threads, the size bounds concurrent upstream refreshes
+        executor = virtualThreads
+                ? Executors.newFixedThreadPool(threads, Thread.ofVirtual().name("weather-refresh-", 0).factory())
+                : Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Schedules {@code refresh} for {@code weatherKey} unless a refresh of that key is already running.
+     *
+     * @return whether the refresh was scheduled by this call
+     */
+    public boolean refresh(String weatherKey, Runnable refresh) {
+        if (!refreshing.add(weatherKey)) {
+            return false;
+        }
+        try {
+            if (!acquireLock(weatherKey)) {
+                refreshing.remove(weatherKey);
+                return false;
+            }
+            executor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (Exception e) {
+                    log.warn("Background refresh of {} failed: {}", weatherKey, e.getMessage());
+                } finally {
+                    refreshing.remove(weatherKey);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(weatherKey);
+            log.warn("Background refresh of {} rejected: {}", weatherKey, e.getMessage());
+            return false;
+        }
+    }
+
+    boolean isRefreshing(String weatherKey) {
+        return refreshing.contains(weatherKey);
+    }
+
+    private boolean acquireLock(String weatherKey) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_PREFIX + weatherKey, "1", Duration.ofMillis(lockTtlMs)));
+        } catch (Exception e) {
+            // Without Redis there is nothing to refresh into, and the local set still prevents duplicates
+            log.warn("Failed to acquire refresh lock for {}: {}", weatherKey, e.getMessage());
+            return false;
+        }
+    }
+}
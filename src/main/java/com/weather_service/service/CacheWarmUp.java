@@ -0,0 +1,229 @@
+package com.weather_service.service;
+
+import com.weather_service.caching.CacheSnapshot;
+import com.weather_service.caching.CachedWeather;
+import com.weather_service.model.Coordinates;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refills the cache when an instance starts, so a deploy or a Redis flush does not send every request upstream
+ * at once.
+ * <p>
+ * Entries from the snapshot file go back into Redis first, then every seed location without an entry is fetched,
+ * at most {@code weather.warmup.seed-calls-per-second} of them. The instance counts as warm once the share of
+ * seeds with an entry reaches {@code weather.warmup.coverage}, or after {@code max-duration-ms} so that a provider
+ * outage cannot keep it out of rotation for good. While it runs, recently requested entries are written to the
+ * snapshot every {@code snapshot.interval-ms} and on shutdown.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class CacheWarmUp {
+
+    private final WeatherService weatherService;
+    private final PopularityTracker popularityTracker;
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${weather.warmup.enabled:true}")
+    private boolean enabled;
+    @Value("${weather.warmup.seed-file:classpath:warmup-seeds.csv}")
+    private Resource seedFile;
+    @Value("${weather.warmup.seed-calls-per-second:5}")
+    private double seedCallsPerSecond;
+    @Value("${weather.warmup.coverage:0.9}")
+    private double requiredCoverage;
+    @Value("${weather.warmup.max-duration-ms:120000}")
+    private long maxDurationMs;
+    @Value("${weather.warmup.snapshot.path:data/weather-cache.snapshot}")
+    private Path snapshotPath;
+    @Value("${weather.warmup.snapshot.max-entries:10000}")
+    private int snapshotMaxEntries;
+
+    private final AtomicInteger restored = new AtomicInteger();
+    private final AtomicInteger seedsCovered = new AtomicInteger();
+    private volatile int seedCount;
+    private volatile long startedAtMillis;
+    private volatile boolean finished;
+    private volatile boolean warm;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        startedAtMillis = System.currentTimeMillis();
+        Thread.ofVirtual().name("cache-warm-up").start(this::warmUp);
+    }
+
+    void warmUp() {
+        try {
+            restoreSnapshot();
+            fetchSeeds(readSeeds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Cache warm-up failed: {}", e.getMessage());
+        } finally {
+            finished = true;
+            log.info("Cache warm-up finished: {} entries restored, {} of {} seed locations cached",
+                    restored.get(), seedsCovered.get(), seedCount);
+        }
+    }
+
+    private void restoreSnapshot() {
+        List<CacheSnapshot.Entry> entries;
+        try {
+            entries = CacheSnapshot.read(snapshotPath, valueSerializer());
+        } catch (NoSuchFileException e) {
+            log.info("No cache snapshot at {}", snapshotPath);
+            return;
+        } catch (IOException e) {
+            log.warn("Ignoring cache snapshot: {}", e.getMessage());
+            return;
+        }
+        for (CacheSnapshot.Entry entry : entries) {
+            if (weatherService.restore(entry)) {
+                restored.incrementAndGet();
+            }
+        }
+    }
+
+    private void fetchSeeds(List<Coordinates> seeds) throws InterruptedException {
+        seedCount = seeds.size();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / seedCallsPerSecond);
+        for (Coordinates seed : seeds) {
+            boolean called = true;
+            try {
+                called = weatherService.prefetch(seed.getLat(), seed.getLon());
+                seedsCovered.incrementAndGet();
+            } catch (Exception e) {
+                log.warn("Warm-up fetch for lat={}, lon={} failed: {}", seed.getLat(), seed.getLon(), e.getMessage());
+            }
+            // Seeds already cached cost no upstream call, so only calls are paced
+            if (called) {
+                TimeUnit.NANOSECONDS.sleep(intervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Seed locations, one {@code lat,lon} pair per line. Blank lines and text after {@code #} are ignored.
+     */
+    List<Coordinates> readSeeds() throws IOException {
+        List<Coordinates> seeds = new ArrayList<>();
+        if (!seedFile.exists()) {
+            log.warn("Seed file {} not found, warming up from the snapshot only", seedFile);
+            return seeds;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(seedFile.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String pair = (comment >= 0 ? line.substring(0, comment) : line).strip();
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                String[] parts = pair.split(",");
+                if (parts.length != 2) {
+                    log.warn("Skipping seed line '{}'", line);
+                    continue;
+                }
+                try {
+                    seeds.add(new Coordinates(Double.parseDouble(parts[0].strip()), Double.parseDouble(parts[1].strip())));
+                } catch (NumberFormatException e) {
+                    log.warn("Skipping seed line '{}'", line);
+                }
+            }
+        }
+        return seeds;
+    }
+
+    /**
+     * Whether the instance should receive traffic. Once warm it stays warm, entries expiring later are refetched
+     * on demand like on any other instance.
+     */
+    public boolean isWarm() {
+        if (!enabled || warm) {
+            return true;
+        }
+        boolean covered = finished && seedCount == 0 || seedCount > 0 && coverage() >= requiredCoverage;
+        boolean timedOut = startedAtMillis > 0 && System.currentTimeMillis() - startedAtMillis >= maxDurationMs;
+        if (covered || timedOut) {
+            if (!covered) {
+                log.warn("Cache warm-up reached only {} coverage in {} ms, accepting traffic anyway", coverage(), maxDurationMs);
+            }
+            warm = true;
+        }
+        return warm;
+    }
+
+    /**
+     * Share of seed locations that have an entry.
+     */
+    public double coverage() {
+        int seeds = seedCount;
+        return seeds == 0 ? 0 : (double) seedsCovered.get() / seeds;
+    }
+
+    public int restored() {
+        return restored.get();
+    }
+
+    @Scheduled(initialDelayString = "${weather.warmup.snapshot.interval-ms:300000}",
+            fixedDelayString = "${weather.warmup.snapshot.interval-ms:300000}")
+    public void writeSnapshot() {
+        // Until warm-up is done the snapshot is still being read, and this instance has little to add to it
+        if (!enabled || !finished) {
+            return;
+        }
+        List<CacheSnapshot.Entry> entries = new ArrayList<>();
+        for (PopularityTracker.HotWeather hot : popularityTracker.hottest(snapshotMaxEntries, 1)) {
+            CachedWeather cached = hot.cachedWeather();
+            if (cached.ttlMillis() > 0) {
+                entries.add(new CacheSnapshot.Entry(cached.latitude(), cached.longitude(), cached.expiresAtMillis(),
+                        cached.weatherData()));
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            CacheSnapshot.write(snapshotPath, entries, valueSerializer());
+            log.debug("Wrote {} entries to the cache snapshot", entries.size());
+        } catch (IOException e) {
+            log.error("Error writing cache snapshot: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshot();
+    }
+
+    // Snapshot values are encoded like Redis values, so entries round-trip in the same layout
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+}
@@ -0,0 +1,107 @@
+package com.weather_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Refreshes the most requested entries shortly before they turn stale, so hot locations never fall out
+ * of the cache while cold ones are left to expire.
+ * <p>
+ * At most {@code weather.refresh.hot.budget-per-minute} refreshes are started per minute to cap the
+ * extra upstream traffic. Entries that are due but did not fit in the budget stay in the backlog and are
+ * picked up again on the next run, hottest first.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class HotEntryRefreshScheduler {
+
+    private static final long BUDGET_WINDOW_MS = 60_000;
+
+    private final PopularityTracker popularityTracker;
+    private final WeatherService weatherService;
+
+    @Value("${weather.refresh.hot.top-n:100}")
+    private int topN;
+    @Value("${weather.refresh.hot.min-hits:5}")
+    private long minHits;
+    @Value("${weather.refresh.hot.lead-time-ms:30000}")
+    private long leadTimeMs;
+    @Value("${weather.refresh.hot.budget-per-minute:60}")
+    private int budgetPerMinute;
+
+    // Held across blocking Redis calls, a monitor would pin the virtual thread running the schedule
+    private final ReentrantLock lock = new ReentrantLock();
+    private long windowStart = System.currentTimeMillis();
+    private int spentInWindow;
+    private volatile List<PopularityTracker.HotWeather> backlog = List.of();
+
+    @Scheduled(fixedDelayString = "${weather.refresh.hot.interval-ms:10000}")
+    public void refreshHotEntries() {
+        try {
+            refreshHotEntries(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Error refreshing hot entries: {}", e.getMessage());
+        }
+    }
+
+    void refreshHotEntries(long now) {
+        lock.lock();
+        try {
+            if (now - windowStart >= BUDGET_WINDOW_MS) {
+                windowStart = now;
+                spentInWindow = 0;
+                popularityTracker.decay();
+            }
+
+            List<PopularityTracker.HotWeather> due = new ArrayList<>();
+            for (PopularityTracker.HotWeather hot : popularityTracker.hottest(topN, minHits)) {
+                if (weatherService.freshFor(hot.cachedWeather()).toMillis() <= leadTimeMs) {
+                    due.add(hot);
+                }
+            }
+
+            List<PopularityTracker.HotWeather> remaining = new ArrayList<>();
+            for (PopularityTracker.HotWeather hot : due) {
+                if (spentInWindow >= budgetPerMinute) {
+                    remaining.add(hot);
+                    continue;
+                }
+                if (weatherService.refreshInBackground(hot.cachedWeather())) {
+                    spentInWindow++;
+                }
+            }
+            backlog = List.copyOf(remaining);
+
+            if (!due.isEmpty()) {
+                log.debug("Hot entry refresh: {} due, {} left in backlog", due.size(), remaining.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<PopularityTracker.HotWeather> hotSet() {
+        return popularityTracker.hottest(topN, minHits);
+    }
+
+    public List<PopularityTracker.HotWeather> backlog() {
+        return backlog;
+    }
+
+    public int remainingBudget() {
+        lock.lock();
+        try {
+            return Math.max(0, budgetPerMinute - spentInWindow);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
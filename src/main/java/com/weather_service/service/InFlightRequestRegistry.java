@@ -0,0 +1,204 @@
+package com.weather_service.service;
+
+import com.weather_service.caching.GeoUtils;
+import com.weather_service.model.WeatherData;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent cache misses that fall within {@code weather.cache.distance} of each other.
+ * <p>
+ * The first miss in an area becomes the leader and calls upstream; later misses nearby wait for the
+ * leader's parsed {@link WeatherData} instead of issuing their own request. The registry only holds
+ * requests that are currently being fetched, so a linear scan is cheaper than any spatial index.
+ */
+@Log4j2
+@Component
+public class InFlightRequestRegistry {
+
+    @Value("${weather.cache.distance:1.0}")
+    private Double cacheDistance;
+    @Value("${weather.coalescing.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    // Not synchronized, a monitor would pin virtual threads waiting to enter it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<InFlightRequest> inFlight = new ArrayList<>();
+
+    /**
+     * Runs {@code fetcher} unless a fetch is already in flight nearby, in which case its result is shared.
+     * {@code onFetched} runs on whoever called {@code fetcher}: on the leader after followers have been released
+     * but before the request leaves the registry, so new arrivals either join the leader or find the cached entry,
+     * and on a follower that gave up waiting. A failing {@code onFetched} is logged, the fetched data is still
+     * returned.
+     */
+    public WeatherData fetch(double lat, double lon, Supplier<WeatherData> fetcher, Consumer<WeatherData> onFetched) {
+        InFlightRequest request;
+        boolean leader = false;
+        lock.lock();
+        try {
+            request = findWithinDistance(lat, lon);
+            if (request == null) {
+                request = new InFlightRequest(lat, lon, new CompletableFuture<>());
+                inFlight.add(request);
+                leader = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (!leader) {
+            log.debug("Joining in-flight request at lat={}, lon={}", request.lat(), request.lon());
+            WeatherData shared = await(request);
+            if (shared != null) {
+                return shared;
+            }
+            WeatherData own = fetcher.get();
+            store(lat, lon, own, onFetched);
+            return own;
+        }
+
+        try {
+            WeatherData weatherData = fetcher.get();
+            request.result().complete(weatherData);
+            store(lat, lon, weatherData, onFetched);
+            return weatherData;
+        } catch (RuntimeException e) {
+            request.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            lock.lock();
+            try {
+                inFlight.remove(request);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Non-blocking {@link #fetch}: followers subscribe to the leader's result instead of parking a thread.
+     * {@code onFetched} completes before the request leaves the registry, like in the blocking variant.
+     */
+    public Mono<WeatherData> fetchReactive(double lat, double lon, Supplier<Mono<WeatherData>> fetcher,
+                                           Function<WeatherData, Mono<Void>> onFetched) {
+        return Mono.defer(() -> {
+            InFlightRequest request;
+            boolean leader = false;
+            lock.lock();
+            try {
+                request = findWithinDistance(lat, lon);
+                if (request == null) {
+                    request = new InFlightRequest(lat, lon, new CompletableFuture<>());
+                    inFlight.add(request);
+                    leader = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (!leader) {
+                log.debug("Joining in-flight request at lat={}, lon={}", request.lat(), request.lon());
+                // A leader that was cancelled completes empty, so followers fetch for themselves
+                return Mono.fromFuture(request.result(), true)
+                        .timeout(Duration.ofMillis(waitTimeoutMs), Mono.empty())
+                        .switchIfEmpty(Mono.defer(fetcher)
+                                .flatMap(own -> storeReactive(lat, lon, own, onFetched)));
+            }
+
+            InFlightRequest led = request;
+            return fetcher.get()
+                    .flatMap(weatherData -> {
+                        led.result().complete(weatherData);
+                        return storeReactive(lat, lon, weatherData, onFetched);
+                    })
+                    .doOnError(led.result()::completeExceptionally)
+                    .doFinally(signal -> {
+                        led.result().complete(null);
+                        lock.lock();
+                        try {
+                            inFlight.remove(led);
+                        } finally {
+                            lock.unlock();
+                        }
+                    });
+        });
+    }
+
+    private static void store(double lat, double lon, WeatherData weatherData, Consumer<WeatherData> onFetched) {
+        try {
+            onFetched.accept(weatherData);
+        } catch (RuntimeException e) {
+            log.error("Error caching fetched weather data for lat={}, lon={}: {}", lat, lon, e.getMessage());
+        }
+    }
+
+    private static Mono<WeatherData> storeReactive(double lat, double lon, WeatherData weatherData,
+                                                   Function<WeatherData, Mono<Void>> onFetched) {
+        return Mono.defer(() -> onFetched.apply(weatherData))
+                .onErrorResume(e -> {
+                    log.error("Error caching fetched weather data for lat={}, lon={}: {}", lat, lon, e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(weatherData);
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private InFlightRequest findWithinDistance(double lat, double lon) {
+        InFlightRequest closest = null;
+        double closestDistance = Double.MAX_VALUE;
+        for (InFlightRequest request : inFlight) {
+            double distance = GeoUtils.distanceKm(lat, lon, request.lat(), request.lon());
+            if (distance <= cacheDistance && distance < closestDistance) {
+                closest = request;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Waits for the leader. Returns {@code null} when the leader took too long, so the caller fetches itself.
+     */
+    private WeatherData await(InFlightRequest request) {
+        try {
+            return request.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for in-flight request at lat={}, lon={}", request.lat(), request.lon());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight request", e);
+        }
+    }
+
+    private record InFlightRequest(double lat, double lon, CompletableFuture<WeatherData> result) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.weather_service.service;
+
+import com.weather_service.caching.CachedWeather;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts cache hits per value key so the hottest entries can be refreshed before they go stale.
+ * <p>
+ * Hits land on a {@link LongAdder} per key, so concurrent requests for the same hot location do not
+ * contend on a single counter. Counts are halved on every {@link #decay()}, which lets locations that
+ * stop being requested fall out of the tracked set and expire from the cache on their own.
+ */
+@Component
+public class PopularityTracker {
+
+    private final Map<String, HotEntry> entries = new ConcurrentHashMap<>();
+
+    @Value("${weather.refresh.hot.max-tracked:10000}")
+    private int maxTracked;
+
+    public void recordHit(CachedWeather cachedWeather) {
+        HotEntry entry = entries.get(cachedWeather.key());
+        if (entry == null) {
+            if (entries.size() >= maxTracked) {
+                return;
+            }
+            entry = entries.computeIfAbsent(cachedWeather.key(), key -> new HotEntry());
+        }
+        entry.hits.increment();
+        entry.cachedWeather = cachedWeather;
+    }
+
+    /**
+     * Replaces the remembered entry after it was written, so its new expiry is used for scheduling.
+     */
+    public void onStored(CachedWeather cachedWeather) {
+        HotEntry entry = entries.get(cachedWeather.key());
+        if (entry != null) {
+            entry.cachedWeather = cachedWeather;
+        }
+    }
+
+    /**
+     * The {@code limit} most requested entries with at least {@code minHits} hits, hottest first.
+     */
+    public List<HotWeather> hottest(int limit, long minHits) {
+        return entries.values().stream()
+                .map(HotEntry::snapshot)
+                .filter(hot -> hot.cachedWeather() != null && hot.hits() >= minHits)
+                .sorted(Comparator.comparingLong(HotWeather::hits).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Halves every count and forgets entries nobody asked for since the previous decay.
+     */
+    public void decay() {
+        entries.entrySet().removeIf(e -> {
+            long hits = e.getValue().hits.sumThenReset();
+            e.getValue().hits.add(hits / 2);
+            return hits == 0;
+        });
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    public record HotWeather(CachedWeather cachedWeather, long hits) {
+    }
+
+    private static class HotEntry {
+
+        private final LongAdder hits = new LongAdder();
+        private volatile CachedWeather cachedWeather;
+
+        private HotWeather snapshot() {
+            return new HotWeather(cachedWeather, hits.sum());
+        }
+    }
+}
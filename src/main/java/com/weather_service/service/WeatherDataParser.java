@@ -0,0 +1,276 @@
+package com.weather_service.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
+import com.weather_service.model.WeatherData;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an OpenWeatherMap current weather response straight from its bytes into {@link WeatherData}.
+ * <p>
+ * Tokens are streamed from a shared {@link JsonFactory} and unused fields are skipped without being
+ * materialized, so a parse allocates little more than the result. Values are coerced the way
+ * {@code JsonNode.asDouble()}, {@code asInt()}, {@code asLong()} and {@code asText()} coerce them, and
+ * missing fields read as zero, so the output is identical to reading the payload as a tree.
+ */
+public class WeatherDataParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private WeatherDataParser() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static WeatherData parse(byte[] body) throws IOException {
+        Fields fields = new Fields();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            // Anything but an object at the root has none of the fields, but is still validated.
+            // Content after the root value is ignored, as it is when reading a tree
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                readRoot(parser, fields);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return fields.toWeatherData();
+    }
+
+    private static void readRoot(JsonParser parser, Fields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "coord" -> readCoord(parser, value, fields);
+                case "weather" -> readWeather(parser, value, fields);
+                case "main" -> readMain(parser, value, fields);
+                case "wind" -> readWind(parser, value, fields);
+                case "clouds" -> readClouds(parser, value, fields);
+                case "sys" -> readSys(parser, value, fields);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readCoord(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        fields.latitude = 0;
+        fields.longitude = 0;
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "lat" -> fields.latitude = asDouble(parser);
+                case "lon" -> fields.longitude = asDouble(parser);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readWeather(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        fields.weatherIds = new ArrayList<>(2);
+        fields.weatherDescriptions = new ArrayList<>(2);
+        if (value == JsonToken.START_OBJECT) {
+            // A tree iterates the values of an object, each of which is a condition
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                readCondition(parser, parser.nextToken(), fields);
+            }
+            return;
+        }
+        if (value != JsonToken.START_ARRAY) {
+            return;
+        }
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            readCondition(parser, element, fields);
+        }
+    }
+
+    private static void readCondition(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        int id = 0;
+        String description = "";
+        if (value == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "id" -> id = asInt(parser);
+                    case "description" -> description = asText(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        fields.weatherIds.add(id);
+        fields.weatherDescriptions.add(description);
+    }
+
+    private static void readMain(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        fields.temperature = 0;
+        fields.humidity = 0;
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "temp" -> fields.temperature = asDouble(parser);
+                case "humidity" -> fields.humidity = asInt(parser);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readWind(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        fields.windSpeed = 0;
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("speed".equals(name)) {
+                fields.windSpeed = asDouble(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readClouds(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        fields.cloudiness = 0;
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("all".equals(name)) {
+                fields.cloudiness = asInt(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readSys(JsonParser parser, JsonToken value, Fields fields) throws IOException {
+        fields.sunrise = 0;
+        fields.sunset = 0;
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "sunrise" -> fields.sunrise = asLong(parser);
+                case "sunset" -> fields.sunset = asLong(parser);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static double asDouble(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_STRING -> NumberInput.parseAsDouble(parser.getText(), 0.0, false);
+            case VALUE_TRUE -> 1.0;
+            default -> {
+                parser.skipChildren();
+                yield 0.0;
+            }
+        };
+    }
+
+    private static int asInt(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            // Wider integers are truncated, not rejected
+            case VALUE_NUMBER_INT -> parser.getNumberType() == JsonParser.NumberType.INT
+                    ? parser.getIntValue() : parser.getNumberValue().intValue();
+            case VALUE_NUMBER_FLOAT -> (int) parser.getDoubleValue();
+            case VALUE_STRING -> NumberInput.parseAsInt(parser.getText(), 0);
+            case VALUE_TRUE -> 1;
+            default -> {
+                parser.skipChildren();
+                yield 0;
+            }
+        };
+    }
+
+    private static long asLong(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                    ? parser.getNumberValue().longValue() : parser.getLongValue();
+            case VALUE_NUMBER_FLOAT -> (long) parser.getDoubleValue();
+            case VALUE_STRING -> NumberInput.parseAsLong(parser.getText(), 0L);
+            case VALUE_TRUE -> 1L;
+            default -> {
+                parser.skipChildren();
+                yield 0L;
+            }
+        };
+    }
+
+    private static String asText(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue().toString();
+            case VALUE_STRING, VALUE_TRUE, VALUE_FALSE, VALUE_NULL -> parser.getText();
+            default -> {
+                parser.skipChildren();
+                yield "";
+            }
+        };
+    }
+
+    private static LocalDateTime toLocalDateTime(long timestamp) {
+        return Instant.ofEpochSecond(timestamp)
+                .atZone(ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+
+    // Primitives until the end, so fields that appear twice only cost a reassignment, the last one wins
+    private static class Fields {
+
+        private double latitude;
+        private double longitude;
+        private List<Integer> weatherIds = new ArrayList<>(0);
+        private List<String> weatherDescriptions = new ArrayList<>(0);
+        private double temperature;
+        private int humidity;
+        private double windSpeed;
+        private int cloudiness;
+        private long sunrise;
+        private long sunset;
+
+        private WeatherData toWeatherData() {
+            WeatherData weatherData = new WeatherData();
+            weatherData.setLatitude(latitude);
+            weatherData.setLongitude(longitude);
+            weatherData.setWeatherIds(weatherIds);
+            weatherData.setWeatherDescriptions(weatherDescriptions);
+            weatherData.setTemperature(temperature);
+            weatherData.setHumidity(humidity);
+            weatherData.setWindSpeed(windSpeed);
+            weatherData.setCloudiness(cloudiness);
+            weatherData.setSunrise(toLocalDateTime(sunrise));
+            weatherData.setSunset(toLocalDateTime(sunset));
+            return weatherData;
+        }
+    }
+}
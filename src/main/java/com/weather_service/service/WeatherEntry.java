@@ -0,0 +1,22 @@
+package com.weather_service.service;
+
+import com.weather_service.model.WeatherData;
+
+import java.time.Duration;
+
+/**
+ * Weather served for a request, with what HTTP caches need to know about the entry behind it.
+ *
+ * @param key         key of the cache entry the data belongs to
+ * @param weatherData weather data served
+ * @param freshFor    time left before the entry turns stale, zero or negative once it is
+ */
+public record WeatherEntry(String key, WeatherData weatherData, Duration freshFor) {
+
+    /**
+     * How long clients and shared caches may reuse the response without asking again.
+     */
+    public Duration maxAge() {
+        return freshFor.isNegative() ? Duration.ZERO : freshFor;
+    }
+}
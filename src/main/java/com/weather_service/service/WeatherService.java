@@ -1,26 +1,30 @@
 package com.weather_service.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_service.caching.CacheSnapshot;
+import com.weather_service.caching.CachedWeather;
+import com.weather_service.caching.WeatherCacheStrategy;
+import com.weather_service.caching.WeatherNearCache;
+import com.weather_service.client.UpstreamScheduler;
 import com.weather_service.client.WeatherDataClient;
 import com.weather_service.handler.BadRequestException;
+import com.weather_service.handler.UpstreamException;
+import com.weather_service.metrics.WeatherMetrics;
+import com.weather_service.model.BatchWeatherResult;
+import com.weather_service.model.Coordinates;
 import com.weather_service.model.WeatherData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.geo.*;
-import org.springframework.data.redis.connection.RedisGeoCommands;
-import org.springframework.data.redis.core.GeoOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
 
 @Log4j2
@@ -30,136 +34,406 @@ public class WeatherService {
 
     private final WeatherDataClient weatherDataClient;
     private final RedisTemplate<String, Object> redisTemplate;
-    private static final String GEO_KEY = "weather";
+    private final WeatherNearCache weatherNearCache;
+    private final InFlightRequestRegistry inFlightRequestRegistry;
+    private final WeatherCacheStrategy weatherCacheStrategy;
+    private final BackgroundRefresher backgroundRefresher;
+    private final PopularityTracker popularityTracker;
+    private final WeatherMetrics weatherMetrics;
+    private final UpstreamScheduler upstreamScheduler;
 
+    // Entries are fresh for ttl, then served stale while refreshed in the background until hard-ttl
     @Value("${weather.cache.ttl:5}")
     private Integer ttlMinutes;
-    @Value("${weather.cache.distance:1.0}")
-    private Double cacheDistance;
+    @Value("${weather.cache.hard-ttl:15}")
+    private Integer hardTtlMinutes;
+    @Value("${weather.upstream.fallback-distance:25}")
+    private double fallbackDistanceKm;
+    @Value("${weather.batch.max-size:100}")
+    private int batchMaxSize;
+    @Value("${weather.batch.parallelism:8}")
+    private int batchParallelism;
 
     public WeatherData getWeatherData(double lat, double lon) {
+        return getWeatherEntry(lat, lon).weatherData();
+    }
+
+    /**
+     * {@link #getWeatherData(double, double)} along with the entry it was served from and how long it stays fresh.
+     */
+    public WeatherEntry getWeatherEntry(double lat, double lon) {
         // Check if data exists in cache within cache distance radius
-        WeatherData cachedWeatherData = getCachedWeatherData(lat, lon);
-        if (cachedWeatherData != null) {
-            return cachedWeatherData;
+        CachedWeather cached = getCachedEntry(lat, lon);
+        if (cached != null) {
+            return new WeatherEntry(cached.key(), cached.weatherData(), freshFor(cached));
         }
 
-        // Get data from external API
-        String jsonString = getWeather(lat, lon);
-        WeatherData weatherData = parseWeatherData(jsonString);
-        // Cache the fetched weather data
-        cacheWeatherData(lat, lon, weatherData);
+        // Get data from external API, sharing any fetch already running nearby, and cache it
+        try {
+            WeatherData weatherData = fetchShared(lat, lon);
+            return new WeatherEntry(weatherCacheStrategy.key(lat, lon), weatherData, softTtl());
+        } catch (UpstreamException e) {
+            CachedWeather fallback = findFallback(lat, lon, e);
+            if (fallback == null) {
+                throw e;
+            }
+            // Not fresh for any time, so the next request tries upstream again
+            return new WeatherEntry(fallback.key(), fallback.weatherData(), Duration.ZERO);
+        }
+    }
 
-        return weatherData;
+    private WeatherData fetch(double lat, double lon) {
+        try {
+            return fetchShared(lat, lon);
+        } catch (UpstreamException e) {
+            CachedWeather fallback = findFallback(lat, lon, e);
+            if (fallback == null) {
+                throw e;
+            }
+            return fallback.weatherData();
+        }
     }
 
-    String getWeather(double lat, double lon) {
-        log.debug("Getting weather data from OpenWeatherMap API");
-        String weatherData = weatherDataClient.getWeatherData(lat, lon);
+    private WeatherData fetchShared(double lat, double lon) {
+        return inFlightRequestRegistry.fetch(lat, lon,
+                () -> parseWeatherData(getWeather(lat, lon, UpstreamScheduler.Priority.USER)),
+                weatherData -> cacheWeatherData(lat, lon, weatherData));
+    }
 
-        if (weatherData == null) {
-            log.error("Failed to retrieve weather data for lat: {} and lon: {}", lat, lon);
-            throw new BadRequestException("No weather data found.");
+    /**
+     * Non-blocking {@link #getWeatherData(double, double)}. Lookups and the upstream call never park a thread,
+     * only the cache write after a miss and stale refresh scheduling are moved to a worker thread.
+     */
+    public Mono<WeatherData> getWeatherDataReactive(double lat, double lon) {
+        CachedWeather nearCached = weatherNearCache.get(lat, lon);
+        if (nearCached != null) {
+            log.debug("Near cache hit for lat={}, lon={}", lat, lon);
+            weatherMetrics.nearHit();
+            popularityTracker.recordHit(nearCached);
+            return Mono.just(nearCached.weatherData());
         }
 
-        return weatherData;
+        return weatherMetrics.timeRedis("find", weatherCacheStrategy.findReactive(lat, lon))
+                .onErrorResume(e -> {
+                    log.error("Error retrieving cached weather data: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .map(closest -> serveCachedReactive(lat, lon, closest))
+                .switchIfEmpty(Mono.defer(() -> {
+                    weatherMetrics.miss();
+                    return Mono.empty();
+                }))
+                .switchIfEmpty(Mono.defer(() -> inFlightRequestRegistry.fetchReactive(lat, lon,
+                        () -> getWeatherReactive(lat, lon).map(this::parseWeatherData),
+                        weatherData -> Mono.<Void>fromRunnable(() -> cacheWeatherData(lat, lon, weatherData))
+                                .subscribeOn(Schedulers.boundedElastic()))))
+                .onErrorResume(UpstreamException.class, e -> Mono.fromCallable(() -> findFallback(lat, lon, e))
+                        .map(CachedWeather::weatherData)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .switchIfEmpty(Mono.error(e)));
     }
 
-    WeatherData parseWeatherData(String jsonString) {
-        log.debug("Parsing weather data to WeatherData Object");
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(jsonString);
-
-            WeatherData weatherData = new WeatherData();
-
-            // Extract latitude and longitude
-            JsonNode coordNode = rootNode.path("coord");
-            weatherData.setLatitude(coordNode.path("lat").asDouble());
-            weatherData.setLongitude(coordNode.path("lon").asDouble());
-
-            // Extract weather details
-            List<Integer> weatherIds = new ArrayList<>();
-            List<String> weatherDescriptions = new ArrayList<>();
-            JsonNode weatherNode = rootNode.path(GEO_KEY);
-            for (JsonNode weather : weatherNode) {
-                weatherIds.add(weather.path("id").asInt());
-                weatherDescriptions.add(weather.path("description").asText());
-            }
-            weatherData.setWeatherIds(weatherIds);
-            weatherData.setWeatherDescriptions(weatherDescriptions);
+    private Mono<byte[]> getWeatherReactive(double lat, double lon) {
+        log.debug("Getting weather data from OpenWeatherMap API");
+        return upstreamScheduler.callReactive(UpstreamScheduler.Priority.USER,
+                        () -> weatherDataClient.getWeatherDataReactive(lat, lon))
+                .switchIfEmpty(Mono.error(() -> {
+                    log.error("Failed to retrieve weather data for lat: {} and lon: {}", lat, lon);
+                    return new BadRequestException("No weather data found.");
+                }));
+    }
 
-            // Extract temperature, humidity, wind speed, and cloudiness
-            JsonNode mainNode = rootNode.path("main");
-            weatherData.setTemperature(mainNode.path("temp").asDouble());
-            weatherData.setHumidity(mainNode.path("humidity").asInt());
+    private WeatherData serveCachedReactive(double lat, double lon, CachedWeather closest) {
+        Duration freshFor = freshFor(closest);
+        if (freshFor.isNegative() || freshFor.isZero()) {
+            // Taking the refresh lock is a blocking Redis call, which must not run on the reply thread
+            Schedulers.boundedElastic().schedule(() -> refreshInBackground(closest));
+        }
+        if (weatherCacheStrategy.shouldSample(closest)) {
+            Schedulers.boundedElastic().schedule(() -> sampleInBackground(lat, lon));
+        }
+        weatherNearCache.put(lat, lon, closest, freshFor);
+        weatherMetrics.hit(closest);
+        popularityTracker.recordHit(closest);
+        return closest.weatherData();
+    }
 
-            JsonNode windNode = rootNode.path("wind");
-            weatherData.setWindSpeed(windNode.path("speed").asDouble());
+    /**
+     * Weather for every coordinate, in request order. Cache lookups share one pipelined Redis exchange and
+     * misses are fetched upstream with at most {@code weather.batch.parallelism} calls in flight.
+     * A failing item is reported in its own result and does not fail the batch.
+     */
+    public List<BatchWeatherResult> getWeatherData(List<Coordinates> coordinates) {
+        if (coordinates == null || coordinates.isEmpty()) {
+            throw new BadRequestException("No coordinates provided.");
+        }
+        if (coordinates.size() > batchMaxSize) {
+            throw new BadRequestException("Too many coordinates, at most " + batchMaxSize + " are allowed.");
+        }
 
-            JsonNode cloudsNode = rootNode.path("clouds");
-            weatherData.setCloudiness(cloudsNode.path("all").asInt());
+        BatchWeatherResult[] results = new BatchWeatherResult[coordinates.size()];
+        List<Integer> lookups = new ArrayList<>();
+        for (int i = 0; i < coordinates.size(); i++) {
+            Coordinates point = coordinates.get(i);
+            if (!isValid(point)) {
+                results[i] = BatchWeatherResult.failure(point, "Invalid coordinates.");
+                continue;
+            }
+            CachedWeather nearCached = weatherNearCache.get(point.getLat(), point.getLon());
+            if (nearCached != null) {
+                weatherMetrics.nearHit();
+                popularityTracker.recordHit(nearCached);
+                results[i] = BatchWeatherResult.success(point, nearCached.weatherData());
+            } else {
+                lookups.add(i);
+            }
+        }
+
+        List<Integer> misses = new ArrayList<>();
+        List<CachedWeather> found = findAll(lookups.stream().map(coordinates::get).toList());
+        for (int i = 0; i < lookups.size(); i++) {
+            int index = lookups.get(i);
+            Coordinates point = coordinates.get(index);
+            if (found.get(i) != null) {
+                results[index] = BatchWeatherResult.success(point,
+                        serveCached(point.getLat(), point.getLon(), found.get(i)).weatherData());
+            } else {
+                weatherMetrics.miss();
+                misses.add(index);
+            }
+        }
 
-            // Extract sunrise and sunset
-            JsonNode sysNode = rootNode.path("sys");
-            weatherData.setSunrise(convertTimestampToLocalDateTime(sysNode.path("sunrise").asLong()));
-            weatherData.setSunset(convertTimestampToLocalDateTime(sysNode.path("sunset").asLong()));
+        if (!misses.isEmpty()) {
+            log.debug("Fetching {} of {} batch items from upstream", misses.size(), coordinates.size());
+            Flux.fromIterable(misses)
+                    .flatMap(index -> fetchBatchItem(coordinates.get(index))
+                            .doOnNext(result -> results[index] = result), batchParallelism)
+                    .blockLast();
+        }
+        return List.of(results);
+    }
 
-            return weatherData;
-        } catch (JsonProcessingException e) {
-            log.error("JsonProcessingException while parsing weather data: {}", e.getMessage());
-            throw new BadRequestException("Error occurred during deserialization");
+    private List<CachedWeather> findAll(List<Coordinates> coordinates) {
+        if (coordinates.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return weatherMetrics.timeRedis("find_all", () -> weatherCacheStrategy.findAll(coordinates));
         } catch (Exception e) {
-            log.error("Unexpected error while parsing weather data: {}", e.getMessage());
-            throw new BadRequestException("Unexpected error while parsing weather data");
+            log.error("Error retrieving cached weather data for batch: {}", e.getMessage());
+            return Collections.nCopies(coordinates.size(), null);
         }
     }
 
-    private static LocalDateTime convertTimestampToLocalDateTime(long timestamp) {
-        return Instant.ofEpochSecond(timestamp)
-                .atZone(ZoneId.systemDefault())
-                .toLocalDateTime();
+    private Mono<BatchWeatherResult> fetchBatchItem(Coordinates point) {
+        double lat = point.getLat();
+        double lon = point.getLon();
+        return Mono.fromCallable(() -> BatchWeatherResult.success(point, fetch(lat, lon)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(BadRequestException.class, e -> Mono.just(BatchWeatherResult.failure(point, e.getMessage())))
+                .onErrorResume(UpstreamException.class, e -> Mono.just(BatchWeatherResult.failure(point, e.getMessage())))
+                .onErrorResume(e -> {
+                    log.error("Unexpected error fetching batch item lat={}, lon={}: {}", lat, lon, e.getMessage());
+                    return Mono.just(BatchWeatherResult.failure(point, "An unexpected error occurred."));
+                });
     }
 
-    public void cacheWeatherData(double lat, double lon, WeatherData weatherData) {
-        log.info("Caching weather data: {}", weatherData);
-        GeoOperations<String, Object> geoOps = redisTemplate.opsForGeo();
+    private static boolean isValid(Coordinates point) {
+        return point != null && point.getLat() != null && point.getLon() != null
+                && Math.abs(point.getLat()) <= 90 && Math.abs(point.getLon()) <= 180;
+    }
+
+    byte[] getWeather(double lat, double lon, UpstreamScheduler.Priority priority) {
+        log.debug("Getting weather data from OpenWeatherMap API");
+        byte[] weatherData = upstreamScheduler.call(priority, () -> weatherDataClient.getWeatherData(lat, lon));
+
+        if (weatherData == null) {
+            log.error("Failed to retrieve weather data for lat: {} and lon: {}", lat, lon);
+            throw new BadRequestException("No weather data found.");
+        }
+
+        return weatherData;
+    }
 
+    WeatherData parseWeatherData(byte[] body) {
+        log.debug("Parsing weather data to WeatherData Object");
+        return weatherMetrics.timeParse(() -> {
+            try {
+                return WeatherDataParser.parse(body);
+            } catch (JsonProcessingException e) {
+                log.error("JsonProcessingException while parsing weather data: {}", e.getMessage());
+                throw new BadRequestException("Error occurred during deserialization");
+            } catch (Exception e) {
+                log.error("Unexpected error while parsing weather data: {}", e.getMessage());
+                throw new BadRequestException("Unexpected error while parsing weather data");
+            }
+        });
+    }
+
+    public void cacheWeatherData(double lat, double lon, WeatherData weatherData) {
+        // Compared with its neighbours before it becomes one of them
+        weatherCacheStrategy.observe(lat, lon, weatherData);
         // Unique key for storing weather data and geospatial info
-        String weatherKey = "weather:" + lat + ":" + lon;
+        cacheWeatherData(lat, lon, weatherCacheStrategy.key(lat, lon), weatherData);
+    }
 
-        // Cache weather data
-        redisTemplate.opsForValue().set(weatherKey, weatherData, Duration.ofMinutes(ttlMinutes));
+    void cacheWeatherData(double lat, double lon, String weatherKey, WeatherData weatherData) {
+        log.debug("Caching weather data under {}", weatherKey);
 
-        // Add geolocation
-        geoOps.add(GEO_KEY, new Point(lon, lat), weatherKey);
-        log.info("Cached weather data for lat={}, lon={}", lat, lon);
+        // Cache weather data until it is too old to be served even while refreshing
+        Duration ttl = hardTtl();
+        weatherMetrics.timeRedis("set", () -> redisTemplate.opsForValue().set(weatherKey, weatherData, ttl));
+        weatherNearCache.invalidate(weatherKey);
+        CachedWeather cachedWeather = new CachedWeather(weatherKey, weatherData, lat, lon, 0,
+                System.currentTimeMillis() + ttl.toMillis());
+        weatherNearCache.put(lat, lon, cachedWeather, softTtl());
+        popularityTracker.onStored(cachedWeather);
+
+        // Make the entry findable, expiring together with the value
+        weatherMetrics.timeRedis("index", () -> weatherCacheStrategy.index(lat, lon, weatherKey, ttl));
+        log.debug("Cached weather data for lat={}, lon={}", lat, lon);
     }
 
     public WeatherData getCachedWeatherData(double lat, double lon) {
-        log.info("Getting cached weather data.");
+        CachedWeather cached = getCachedEntry(lat, lon);
+        return cached != null ? cached.weatherData() : null;
+    }
+
+    private CachedWeather getCachedEntry(double lat, double lon) {
+        log.debug("Getting cached weather data.");
+        CachedWeather nearCached = weatherNearCache.get(lat, lon);
+        if (nearCached != null) {
+            log.debug("Near cache hit for lat={}, lon={}", lat, lon);
+            weatherMetrics.nearHit();
+            popularityTracker.recordHit(nearCached);
+            return nearCached;
+        }
         try {
-            GeoOperations<String, Object> geoOps = redisTemplate.opsForGeo();
-            // Search within cacheDistance radius for cached weather data
-            Circle circle = new Circle(new Point(lon, lat), new Distance(cacheDistance, RedisGeoCommands.DistanceUnit.KILOMETERS));
-            GeoResults<RedisGeoCommands.GeoLocation<Object>> results = geoOps.radius(GEO_KEY, circle);
-
-            if (results != null && !results.getContent().isEmpty()) {
-                GeoResult<RedisGeoCommands.GeoLocation<Object>> closestResult = results.getContent().stream()
-                        .min(Comparator.comparing(geoResult -> geoResult.getDistance().getValue())) // Find the closest result
-                        .orElse(null);
-
-                if (closestResult != null) {
-                    String closestWeatherKey = (String) closestResult.getContent().getName();
-                    log.info("Closest cached weather data found for key: {}", closestWeatherKey);
-                    return (WeatherData) redisTemplate.opsForValue().get(closestWeatherKey);
-                }
+            // Search for the closest live entry within cache distance
+            CachedWeather closest = weatherMetrics.timeRedis("find", () -> weatherCacheStrategy.find(lat, lon));
+            if (closest != null) {
+                log.debug("Closest cached weather data found for key: {}", closest.key());
+                return serveCached(lat, lon, closest);
             }
             log.debug("No cached weather data found.");
+            weatherMetrics.miss();
             return null;
         } catch (Exception e) {
             log.error("Error retrieving cached weather data: {}", e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Closest entry within {@code weather.upstream.fallback-distance} to answer with while upstream is failing,
+     * {@code null} if there is none. Fallbacks are not put in the near cache, so the next request tries upstream.
+     */
+    private CachedWeather findFallback(double lat, double lon, UpstreamException failure) {
+        try {
+            CachedWeather fallback = weatherCacheStrategy.findFallback(lat, lon, fallbackDistanceKm);
+            if (fallback != null) {
+                weatherMetrics.fallback(fallback);
+                log.warn("Upstream failed ({}), serving {} from {} km away for lat={}, lon={}",
+                        failure.getReason(), fallback.key(), fallback.distanceKm(), lat, lon);
+                return fallback;
+            }
+        } catch (Exception e) {
+            log.error("Error retrieving fallback weather data: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private CachedWeather serveCached(double lat, double lon, CachedWeather closest) {
+        Duration freshFor = freshFor(closest);
+        if (freshFor.isNegative() || freshFor.isZero()) {
+            refreshInBackground(closest);
+        }
+        if (weatherCacheStrategy.shouldSample(closest)) {
+            sampleInBackground(lat, lon);
+        }
+        weatherNearCache.put(lat, lon, closest, freshFor);
+        weatherMetrics.hit(closest);
+        popularityTracker.recordHit(closest);
+        return closest;
+    }
+
+    /**
+     * Time left before the entry turns stale, negative once it already is.
+     */
+    Duration freshFor(CachedWeather cached) {
+        Duration staleWindow = hardTtl().minus(softTtl());
+        return Duration.ofMillis(cached.ttlMillis()).minus(staleWindow);
+    }
+
+    /**
+     * Re-fetches the entry off the request path, unless a refresh of its key is already running.
+     *
+     * @return whether the refresh was scheduled by this call
+     */
+    boolean refreshInBackground(CachedWeather cached) {
+        boolean scheduled = backgroundRefresher.refresh(cached.key(), () -> {
+            WeatherData weatherData = parseWeatherData(getWeather(cached.latitude(), cached.longitude(),
+                    UpstreamScheduler.Priority.REFRESH));
+            cacheWeatherData(cached.latitude(), cached.longitude(), cached.key(), weatherData);
+        });
+        if (scheduled) {
+            log.debug("Refreshing entry {} in the background", cached.key());
+        }
+        return scheduled;
+    }
+
+    /**
+     * Fetches the requested point of a hit off the request path and caches it, so the strategy can compare it
+     * with the entry that was served.
+     *
+     * @return whether the fetch was scheduled by this call
+     */
+    boolean sampleInBackground(double lat, double lon) {
+        return backgroundRefresher.refresh(weatherCacheStrategy.key(lat, lon), () -> cacheWeatherData(lat, lon,
+                parseWeatherData(getWeather(lat, lon, UpstreamScheduler.Priority.REFRESH))));
+    }
+
+    /**
+     * Writes an entry read back from a snapshot with the time to live it had left, unless its key is cached
+     * already, which would be at least as fresh.
+     *
+     * @return whether the entry was written
+     */
+    boolean restore(CacheSnapshot.Entry entry) {
+        Duration ttl = Duration.ofMillis(entry.expiresAtMillis() - System.currentTimeMillis());
+        if (ttl.isNegative() || ttl.isZero()) {
+            return false;
+        }
+        // Keyed by the current strategy, so a snapshot taken under the other one still lands where lookups go
+        String weatherKey = weatherCacheStrategy.key(entry.latitude(), entry.longitude());
+        Boolean written = weatherMetrics.timeRedis("set",
+                () -> redisTemplate.opsForValue().setIfAbsent(weatherKey, entry.weatherData(), ttl));
+        if (!Boolean.TRUE.equals(written)) {
+            return false;
+        }
+        weatherMetrics.timeRedis("index", () -> weatherCacheStrategy.index(entry.latitude(), entry.longitude(), weatherKey, ttl));
+        return true;
+    }
+
+    /**
+     * Makes sure an entry serves the given point, fetching it at background priority if none does.
+     *
+     * @return whether upstream was called
+     */
+    boolean prefetch(double lat, double lon) {
+        if (weatherCacheStrategy.find(lat, lon) != null) {
+            return false;
+        }
+        WeatherData weatherData = parseWeatherData(getWeather(lat, lon, UpstreamScheduler.Priority.REFRESH));
+        cacheWeatherData(lat, lon, weatherData);
+        return true;
+    }
+
+    private Duration softTtl() {
+        return Duration.ofMinutes(ttlMinutes);
+    }
+
+    private Duration hardTtl() {
+        return Duration.ofMinutes(Math.max(ttlMinutes, hardTtlMinutes));
+    }
 }
@@ -4,6 +4,8 @@ public class HTTPResponseMessages {
 
     public static final String HTTP_200 = "Request was successful. The response includes the requested data. " +
             "See the example below for reference.";
+    public static final String HTTP_304 = "Not Modified. The data matching If-None-Match is still current, " +
+            "the response has no body.";
     public static final String HTTP_400 = "Bad Request. The input data contains validation errors, " +
             "such as missing or invalid fields.";
     public static final String HTTP_403 = "Forbidden. The client does not have permission to access the requested resource.";
@@ -2,17 +2,44 @@ package com.weather_service.swagger;
 
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
 public class OpenApiConfig {
 
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
     @Bean
+    @Lazy
     public OpenAPI customOpenAPI() {
         return new OpenAPI().info(apiInfo());
     }
 
+    /**
+     * Leaves springdoc's beans to the first {@code /v3/api-docs} or {@code /swagger-ui} request, none of them
+     * are needed to serve weather. Under AOT the flag is baked into the generated bean definitions.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringdoc() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isSpringdoc(definition.getBeanClassName()) || isSpringdoc(definition.getFactoryBeanName())) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    // Auto-configuration classes are registered under their class name, so this also covers their @Bean methods
+    private static boolean isSpringdoc(String name) {
+        return name != null && name.startsWith(SPRINGDOC_PACKAGE);
+    }
+
     private Info apiInfo() {
         return new Info()
                 .title("Weather data API")
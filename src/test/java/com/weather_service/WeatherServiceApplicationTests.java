@@ -3,7 +3,7 @@ package com.weather_service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "weather.warmup.enabled=false")
 class WeatherServiceApplicationTests {
 
     @Test
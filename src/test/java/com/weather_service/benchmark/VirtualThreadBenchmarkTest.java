@@ -0,0 +1,189 @@
+package com.weather_service.benchmark;
+
+import com.weather_service.TestcontainersConfiguration;
+import com.weather_service.WeatherServiceApplication;
+import com.weather_service.loadtest.UpstreamStub;
+import com.weather_service.metrics.PinnedThreadMonitor;
+import com.weather_service.security.JwtUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the service on Tomcat's platform worker pool with the {@code virtual-threads} profile, serving cache
+ * misses over HTTP. Each mode runs the whole application: the servlet stack, the blocking
+ * {@code WeatherDataClient} call against {@link UpstreamStub} answering after {@link #UPSTREAM_LATENCY_MS}, and
+ * the Redis calls through Lettuce to Testcontainers Redis. The platform pool has Tomcat's default of 200 workers,
+ * so it can only wait on that many upstream calls at once.
+ * <p>
+ * In the virtual mode {@link PinnedThreadMonitor} records every pinned wait, and the test fails if there was
+ * any. Run with {@code ./gradlew benchmark}, add {@code -Dbenchmark.redis=host:port} to use a running Redis
+ * instead of Testcontainers.
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmarkTest {
+
+    private static final Logger log = LogManager.getLogger(VirtualThreadBenchmarkTest.class);
+
+    private static final int REQUESTS = 2_000;
+    private static final int WARMUP_REQUESTS = 200;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long UPSTREAM_LATENCY_MS = 100;
+    private static final String EXTERNAL_REDIS = System.getProperty("benchmark.redis");
+
+    private static UpstreamStub upstream;
+    private static KeyPair keyPair;
+    private static HttpClient client;
+    // Every request is for a point no earlier request was near, so each one is a miss
+    private static int nextPoint;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        upstream = new UpstreamStub(UPSTREAM_LATENCY_MS, 0, 0);
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        upstream.close();
+        client.close();
+    }
+
+    @Test
+    void cacheMisses_ServletStack_PlatformVersusVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        log.info("{} concurrent cache misses with {}ms upstream: platform threads ({}) {}ms, {} req/s; "
+                        + "virtual threads {}ms, {} req/s, {} pinned waits",
+                REQUESTS, UPSTREAM_LATENCY_MS, PLATFORM_THREADS,
+                platform.millis(), REQUESTS * 1000L / platform.millis(),
+                virtual.millis(), REQUESTS * 1000L / virtual.millis(), virtual.pinned());
+        assertEquals(0, platform.failed(), "Failed requests on platform threads");
+        assertEquals(0, virtual.failed(), "Failed requests on virtual threads");
+        assertEquals(0, virtual.pinned(), "Virtual threads were pinned, see the PinnedThreadMonitor warnings above");
+    }
+
+    private record Result(long millis, long failed, long pinned) {
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = start(virtualThreads)) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/weather";
+            String authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken("admin");
+
+            // Warm up class loading, JIT and connections before measuring
+            send(baseUrl, authorization, WARMUP_REQUESTS);
+
+            PinnedThreadMonitor monitor = virtualThreads ? context.getBean(PinnedThreadMonitor.class) : null;
+            long pinnedBefore = monitor != null ? monitor.pinnedCount() : 0;
+            long start = System.nanoTime();
+            long failed = send(baseUrl, authorization, REQUESTS);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // Events reach the monitor asynchronously
+            Thread.sleep(1_000);
+            return new Result(millis, failed, monitor != null ? monitor.pinnedCount() - pinnedBefore : 0);
+        }
+    }
+
+    private ConfigurableApplicationContext start(boolean virtualThreads) {
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "server.tomcat.threads.max=" + PLATFORM_THREADS,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "spring.cloud.aws.parameterstore.enabled=false",
+                "weather.warmup.enabled=false",
+                "weather.upstream.quota.enabled=false",
+                // The stub is the slow part, not the connection pool in front of it
+                "weather.upstream.pool.max-connections=" + REQUESTS,
+                "weather.upstream.pool.pending-acquire-max=" + REQUESTS,
+                // Compares throughput, so a slow machine should make a mode slower rather than trip the deadlines
+                "weather.upstream.deadline-ms=60000",
+                "weather.upstream.response-timeout-ms=60000",
+                "weather.upstream.pool.pending-acquire-timeout-ms=60000",
+                "weather.virtual-threads.pinned-threshold-ms=0",
+                "openweathermap.api.url=" + upstream.url(),
+                "openweathermap.api.key=benchmark",
+                "security.admin-password=benchmark",
+                "security.private-key=" + pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()),
+                "security.public-key=" + pem("PUBLIC KEY", keyPair.getPublic().getEncoded()),
+                "security.token-expiration=" + TimeUnit.HOURS.toMillis(1),
+                "logging.level.com.weather_service=warn",
+                "logging.level.com.weather_service.benchmark=info"));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(WeatherServiceApplication.class)
+                .profiles(virtualThreads ? new String[]{"virtual-threads"} : new String[0]);
+        if (EXTERNAL_REDIS == null) {
+            builder.initializers(new TestcontainersConfiguration.Initializer());
+        } else {
+            // Scanning the container's configuration would start it regardless
+            builder.initializers(context -> context.getBeanFactory().registerSingleton("benchmarkExcludeFilter", new TypeExcludeFilter() {
+                @Override
+                public boolean match(MetadataReader reader, MetadataReaderFactory factory) {
+                    return reader.getClassMetadata().getClassName().startsWith(TestcontainersConfiguration.class.getName());
+                }
+            }));
+            String[] hostAndPort = EXTERNAL_REDIS.split(":");
+            properties.add("spring.data.redis.host=" + hostAndPort[0]);
+            properties.add("spring.data.redis.port=" + hostAndPort[1]);
+        }
+        // As arguments, since default properties rank below application.yml, which imports the parameter store
+        return builder.run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    /**
+     * Sends {@code requests} requests at once and waits for all of them, returning how many did not succeed.
+     */
+    private static long send(String baseUrl, String authorization, int requests) {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            // ~2km apart, so no request coalesces with another or hits another's entry
+            double lat = -80 + nextPoint++ * 0.02;
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?lat=" + lat + "&lon=10.0"))
+                    .header("Authorization", authorization)
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        return responses.stream()
+                .map(response -> response.handle((result, e) -> e == null && result.statusCode() == 200))
+                .map(CompletableFuture::join)
+                .filter(ok -> !ok)
+                .count();
+    }
+
+    private static String pem(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n" + Base64.getMimeEncoder().encodeToString(encoded) + "\n-----END " + type + "-----";
+    }
+}
@@ -0,0 +1,133 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRadiusTest {
+
+    private static final double BASE_KM = 1.0;
+    private static final double LAT = 51.5074;
+    private static final double LON = -0.1278;
+
+    private AdaptiveRadius adaptiveRadius;
+
+    @BeforeEach
+    void setUp() {
+        adaptiveRadius = new AdaptiveRadius();
+        ReflectionTestUtils.setField(adaptiveRadius, "enabled", true);
+        ReflectionTestUtils.setField(adaptiveRadius, "regionPrecision", 4);
+        ReflectionTestUtils.setField(adaptiveRadius, "minDistanceKm", 0.25);
+        ReflectionTestUtils.setField(adaptiveRadius, "maxDistanceKm", 2.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "widenFactor", 1.25);
+        ReflectionTestUtils.setField(adaptiveRadius, "narrowFactor", 0.5);
+        ReflectionTestUtils.setField(adaptiveRadius, "hitSampleRate", 1.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "maxRegions", 100L);
+        ReflectionTestUtils.setField(adaptiveRadius, "temperatureTolerance", 1.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "humidityTolerance", 10);
+        ReflectionTestUtils.setField(adaptiveRadius, "windSpeedTolerance", 2.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "cloudinessTolerance", 25);
+        adaptiveRadius.init();
+    }
+
+    @Test
+    void radiusKm_NothingObserved_ReturnsBase() {
+        assertEquals(BASE_KM, adaptiveRadius.radiusKm(LAT, LON, BASE_KM));
+    }
+
+    @Test
+    void observe_SimilarNeighbour_WidensStepwiseUpToMax() {
+        adaptiveRadius.observe(LAT, LON, BASE_KM, neighbour(1.8, weather(15.0, 801)), weather(15.5, 802));
+        assertEquals(1.25, adaptiveRadius.radiusKm(LAT, LON, BASE_KM), 1e-9);
+
+        // Never wider than the neighbour proved similar
+        adaptiveRadius.observe(LAT, LON, BASE_KM, neighbour(1.4, weather(15.0, 801)), weather(15.5, 802));
+        assertEquals(1.4, adaptiveRadius.radiusKm(LAT, LON, BASE_KM), 1e-9);
+
+        for (int i = 0; i < 10; i++) {
+            adaptiveRadius.observe(LAT, LON, BASE_KM, neighbour(5.0, weather(15.0, 801)), weather(15.5, 802));
+        }
+        assertEquals(2.0, adaptiveRadius.radiusKm(LAT, LON, BASE_KM), 1e-9);
+    }
+
+    @Test
+    void observe_DifferentNeighbourWithinReach_Narrows() {
+        adaptiveRadius.observe(LAT, LON, BASE_KM, neighbour(0.8, weather(15.0, 800)), weather(15.0, 500));
+
+        assertEquals(0.4, adaptiveRadius.radiusKm(LAT, LON, BASE_KM), 1e-9);
+    }
+
+    @Test
+    void observe_DifferentNeighbourBeyondReach_KeepsRadius() {
+        adaptiveRadius.observe(LAT, LON, BASE_KM, neighbour(1.9, weather(15.0, 800)), weather(19.0, 800));
+
+        assertEquals(BASE_KM, adaptiveRadius.radiusKm(LAT, LON, BASE_KM), 1e-9);
+    }
+
+    @Test
+    void observe_OnlyAffectsItsRegion() {
+        adaptiveRadius.observe(LAT, LON, BASE_KM, neighbour(0.8, weather(15.0, 800)), weather(25.0, 800));
+
+        assertEquals(BASE_KM, adaptiveRadius.radiusKm(48.8566, 2.3522, BASE_KM));
+    }
+
+    @Test
+    void observe_Disabled_KeepsBase() {
+        ReflectionTestUtils.setField(adaptiveRadius, "enabled", false);
+
+        adaptiveRadius.observe(LAT, LON, BASE_KM, neighbour(0.8, weather(15.0, 800)), weather(25.0, 800));
+
+        assertEquals(BASE_KM, adaptiveRadius.radiusKm(LAT, LON, BASE_KM));
+    }
+
+    @Test
+    void shouldSample_OnlyHitsFromBeyondMinDistance() {
+        assertTrue(adaptiveRadius.shouldSample(neighbour(0.8, weather(15.0, 800))));
+        assertFalse(adaptiveRadius.shouldSample(neighbour(0.1, weather(15.0, 800))));
+
+        ReflectionTestUtils.setField(adaptiveRadius, "hitSampleRate", 0.0);
+        assertFalse(adaptiveRadius.shouldSample(neighbour(0.8, weather(15.0, 800))));
+    }
+
+    @Test
+    void shouldSample_Disabled_NeverSamples() {
+        ReflectionTestUtils.setField(adaptiveRadius, "enabled", false);
+
+        assertFalse(adaptiveRadius.shouldSample(neighbour(0.8, weather(15.0, 800))));
+    }
+
+    @Test
+    void served_HitBeyondBase_CountsSavedCall() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        adaptiveRadius.bindTo(registry);
+
+        adaptiveRadius.served(neighbour(0.5, weather(15.0, 800)), BASE_KM);
+        adaptiveRadius.served(neighbour(1.5, weather(15.0, 800)), BASE_KM);
+        adaptiveRadius.served(null, BASE_KM);
+        adaptiveRadius.radiusKm(LAT, LON, BASE_KM);
+
+        assertEquals(1.0, registry.get("weather.cache.radius.saved").functionCounter().count());
+        assertEquals(1, registry.get("weather.cache.radius").summary().count());
+    }
+
+    private static CachedWeather neighbour(double distanceKm, WeatherData weatherData) {
+        return new CachedWeather("weather:{gcpv}:51.51:-0.13", weatherData, 51.51, -0.13, distanceKm,
+                System.currentTimeMillis() + 60_000);
+    }
+
+    private static WeatherData weather(double temperature, int weatherId) {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setTemperature(temperature);
+        weatherData.setHumidity(70);
+        weatherData.setWindSpeed(3.0);
+        weatherData.setCloudiness(40);
+        weatherData.setWeatherIds(List.of(weatherId));
+        return weatherData;
+    }
+}
@@ -0,0 +1,92 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotTest {
+
+    private final RedisSerializer<Object> serializer = new WeatherDataRedisSerializer(CacheConfig.jsonSerializer(), true);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void write_ThenRead_RoundTripsEntries() throws IOException {
+        Path path = directory.resolve("snapshot");
+        List<CacheSnapshot.Entry> entries = List.of(
+                new CacheSnapshot.Entry(51.5074, -0.1278, 1_700_000_000_000L, weatherData(14.7)),
+                new CacheSnapshot.Entry(-33.8688, 151.2093, 1_700_000_060_000L, weatherData(21.3)));
+
+        CacheSnapshot.write(path, entries, serializer);
+
+        assertEquals(entries, CacheSnapshot.read(path, serializer));
+    }
+
+    @Test
+    void write_ReplacesPreviousSnapshotWithoutLeavingTempFiles() throws IOException {
+        Path path = directory.resolve("snapshot");
+        CacheSnapshot.write(path, List.of(new CacheSnapshot.Entry(1, 1, 1, weatherData(1))), serializer);
+
+        CacheSnapshot.write(path, List.of(new CacheSnapshot.Entry(2, 2, 2, weatherData(2))), serializer);
+
+        assertEquals(2, CacheSnapshot.read(path, serializer).getFirst().latitude());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void read_TruncatedFile_Throws() throws IOException {
+        Path path = directory.resolve("snapshot");
+        CacheSnapshot.write(path, List.of(new CacheSnapshot.Entry(1, 1, 1, weatherData(1))), serializer);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertThrows(IOException.class, () -> CacheSnapshot.read(path, serializer));
+    }
+
+    @Test
+    void read_CorruptSizes_ThrowsWithoutAllocating() throws IOException {
+        Path path = directory.resolve("snapshot");
+        CacheSnapshot.write(path, List.of(new CacheSnapshot.Entry(1, 1, 1, weatherData(1))), serializer);
+        byte[] bytes = Files.readAllBytes(path);
+
+        // Entry count, right after the magic and the version
+        ByteBuffer.wrap(bytes).putInt(5, Integer.MAX_VALUE);
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> CacheSnapshot.read(path, serializer));
+
+        // Value length of the first entry, after its coordinates and expiry
+        ByteBuffer.wrap(bytes).putInt(5, 1).putInt(9 + 24, Integer.MAX_VALUE);
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> CacheSnapshot.read(path, serializer));
+    }
+
+    @Test
+    void read_NotASnapshot_Throws() throws IOException {
+        Path path = directory.resolve("snapshot");
+        Files.writeString(path, "{\"not\":\"a snapshot\"}");
+
+        assertThrows(IOException.class, () -> CacheSnapshot.read(path, serializer));
+    }
+
+    private static WeatherData weatherData(double temperature) {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setTemperature(temperature);
+        weatherData.setHumidity(80);
+        weatherData.setSunrise(LocalDateTime.of(2024, 8, 28, 6, 18, 7));
+        return weatherData;
+    }
+}
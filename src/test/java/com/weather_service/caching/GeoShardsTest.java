@@ -0,0 +1,38 @@
+package com.weather_service.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoShardsTest {
+
+    @Test
+    void shardOf_MatchesStandardGeohash() {
+        assertEquals("gcp", GeoShards.shardOf(51.5074, -0.1278, 3));
+        assertEquals("r3gx2", GeoShards.shardOf(-33.8688, 151.2093, 5));
+    }
+
+    @Test
+    void shardsWithin_CircleInsideOneCell_ReturnsItsShard() {
+        assertEquals(Set.of("gcp"), GeoShards.shardsWithin(51.5074, -0.1278, 1.0, 3));
+    }
+
+    @Test
+    void shardsWithin_CircleAcrossBorder_ReturnsBothShardsCentreFirst() {
+        Set<String> shards = GeoShards.shardsWithin(51.5, 0.001, 1.0, 3);
+
+        assertEquals("u10", shards.iterator().next());
+        assertTrue(shards.contains("gcp"));
+        assertEquals(2, shards.size());
+    }
+
+    @Test
+    void shardsWithin_CircleAcrossAntimeridian_WrapsLongitude() {
+        Set<String> shards = GeoShards.shardsWithin(0.5, 179.999, 1.0, 3);
+
+        assertTrue(shards.contains("xbp"));
+        assertTrue(shards.contains("800"));
+    }
+}
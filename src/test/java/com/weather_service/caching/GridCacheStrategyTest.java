@@ -0,0 +1,75 @@
+package com.weather_service.caching;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class GridCacheStrategyTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @InjectMocks
+    private GridCacheStrategy gridCacheStrategy;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(gridCacheStrategy, "cacheDistance", 1.0);
+    }
+
+    @Test
+    void key_NearbyPointsInSameCell_ShareKey() {
+        GridCacheStrategy.Cell cell = gridCacheStrategy.cellOf(56.9710, 24.1604);
+
+        assertEquals(cell.key(), gridCacheStrategy.key(cell.centerLat() + 0.0001, cell.centerLon() - 0.0001));
+        assertTrue(cell.key().startsWith("weather:cell:"));
+    }
+
+    @Test
+    void key_DistantPoints_DifferentKeys() {
+        assertNotEquals(gridCacheStrategy.key(56.9710, 24.1604), gridCacheStrategy.key(56.9910, 24.1604));
+        assertNotEquals(gridCacheStrategy.key(56.9710, 24.1604), gridCacheStrategy.key(56.9710, 24.2004));
+    }
+
+    @Test
+    void cellOf_PointsSharingCell_AreWithinCacheDistance() {
+        Random random = new Random(1);
+        for (double lat : new double[]{0.0, 45.0, 64.049075, -78.0}) {
+            GridCacheStrategy.Cell cell = gridCacheStrategy.cellOf(lat, 10.0);
+            for (int i = 0; i < 1000; i++) {
+                double otherLat = cell.centerLat() + (random.nextDouble() - 0.5) * 0.02;
+                double otherLon = cell.centerLon() + (random.nextDouble() - 0.5) * 0.05;
+                if (gridCacheStrategy.cellOf(otherLat, otherLon).equals(cell)) {
+                    assertTrue(GeoUtils.distanceKm(cell.centerLat(), cell.centerLon(), otherLat, otherLon) <= 0.5 + 1e-3);
+                }
+            }
+        }
+    }
+
+    @Test
+    void neighbourhood_ContainsOwnCellFirstAndEightNeighbours() {
+        List<GridCacheStrategy.Cell> cells = gridCacheStrategy.neighbourhood(40.7128, -74.0060);
+
+        assertEquals(9, cells.size());
+        assertEquals(gridCacheStrategy.cellOf(40.7128, -74.0060), cells.get(0));
+        assertEquals(9, cells.stream().map(GridCacheStrategy.Cell::key).distinct().count());
+    }
+
+    @Test
+    void neighbourhood_AtDateLine_WrapsLongitude() {
+        List<GridCacheStrategy.Cell> cells = gridCacheStrategy.neighbourhood(0.0, 179.9999);
+
+        assertTrue(cells.stream().allMatch(cell -> cell.centerLon() >= -180 && cell.centerLon() < 180));
+    }
+}
@@ -0,0 +1,80 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RadiusCacheStrategyTest {
+
+    private static final double LAT = 51.5074;
+    private static final double LON = -0.1278;
+
+    @Mock
+    private WeatherGeoIndex weatherGeoIndex;
+
+    @Spy
+    private AdaptiveRadius adaptiveRadius = new AdaptiveRadius();
+
+    @InjectMocks
+    private RadiusCacheStrategy radiusCacheStrategy;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(radiusCacheStrategy, "cacheDistance", 1.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "enabled", true);
+        ReflectionTestUtils.setField(adaptiveRadius, "regionPrecision", 4);
+        ReflectionTestUtils.setField(adaptiveRadius, "minDistanceKm", 0.25);
+        ReflectionTestUtils.setField(adaptiveRadius, "maxDistanceKm", 10.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "widenFactor", 1.25);
+        ReflectionTestUtils.setField(adaptiveRadius, "narrowFactor", 0.5);
+        ReflectionTestUtils.setField(adaptiveRadius, "hitSampleRate", 1.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "maxRegions", 100L);
+        ReflectionTestUtils.setField(adaptiveRadius, "temperatureTolerance", 1.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "humidityTolerance", 10);
+        ReflectionTestUtils.setField(adaptiveRadius, "windSpeedTolerance", 2.0);
+        ReflectionTestUtils.setField(adaptiveRadius, "cloudinessTolerance", 25);
+        adaptiveRadius.init();
+    }
+
+    @Test
+    void sampledHit_WeatherDiffersInsideRadius_ShrinksRadius() {
+        CachedWeather hit = new CachedWeather("weather:{gcpv}:51.51:-0.12", weather(15.0, 800), 51.51, -0.12, 0.8,
+                System.currentTimeMillis() + 60_000);
+        when(weatherGeoIndex.findNearest(LAT, LON, 1.0)).thenReturn(hit);
+
+        CachedWeather served = radiusCacheStrategy.find(LAT, LON);
+        assertSame(hit, served);
+        assertTrue(radiusCacheStrategy.shouldSample(served));
+
+        // The fresh observation at the requested point is compared with the hit before it is stored
+        when(weatherGeoIndex.valueKey(LAT, LON)).thenReturn("weather:{gcpv}:51.5074:-0.1278");
+        when(weatherGeoIndex.findNearest(LAT, LON, 10.0)).thenReturn(hit);
+        radiusCacheStrategy.observe(LAT, LON, weather(15.0, 500));
+
+        radiusCacheStrategy.find(LAT, LON);
+        verify(weatherGeoIndex).findNearest(eq(LAT), eq(LON), doubleThat(radiusKm -> Math.abs(radiusKm - 0.4) < 1e-9));
+    }
+
+    private static WeatherData weather(double temperature, int weatherId) {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setTemperature(temperature);
+        weatherData.setHumidity(70);
+        weatherData.setWindSpeed(3.0);
+        weatherData.setCloudiness(40);
+        weatherData.setWeatherIds(List.of(weatherId));
+        return weatherData;
+    }
+}
@@ -0,0 +1,144 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherDataRedisSerializerTest {
+
+    private static final Logger log = LogManager.getLogger(WeatherDataRedisSerializerTest.class);
+
+    private final RedisSerializer<Object> json = CacheConfig.jsonSerializer();
+    private final WeatherDataRedisSerializer serializer = new WeatherDataRedisSerializer(json, true);
+
+    private WeatherData weatherData;
+
+    @BeforeEach
+    void setUp() {
+        weatherData = new WeatherData();
+        weatherData.setLatitude(51.5085);
+        weatherData.setLongitude(-0.1257);
+        weatherData.setWeatherIds(new ArrayList<>(List.of(500, 701)));
+        weatherData.setWeatherDescriptions(new ArrayList<>(List.of("light rain", "mist")));
+        weatherData.setTemperature(14.73);
+        weatherData.setHumidity(87);
+        weatherData.setWindSpeed(4.63);
+        weatherData.setCloudiness(75);
+        weatherData.setSunrise(LocalDateTime.of(2024, 8, 28, 6, 18, 7));
+        weatherData.setSunset(LocalDateTime.of(2024, 8, 28, 20, 31, 22));
+    }
+
+    @Test
+    void serialize_WeatherData_RoundTripsInBinaryLayout() {
+        byte[] bytes = serializer.serialize(weatherData);
+
+        assertEquals(WeatherDataRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(WeatherDataRedisSerializer.VERSION, bytes[1]);
+        assertEquals(weatherData, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void serialize_UnusualValues_RoundTrip() {
+        weatherData.setWeatherIds(new ArrayList<>(List.of(Integer.MIN_VALUE, 0, Integer.MAX_VALUE)));
+        weatherData.setWeatherDescriptions(new ArrayList<>(List.of("dichter Nebel", "", "clear sky")));
+        weatherData.setHumidity(-1);
+        weatherData.setTemperature(Double.NaN);
+        weatherData.setSunrise(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123_456_789));
+
+        assertEquals(weatherData, serializer.deserialize(serializer.serialize(weatherData)));
+    }
+
+    @Test
+    void serialize_MissingFields_RoundTrip() {
+        WeatherData empty = new WeatherData();
+
+        byte[] bytes = serializer.serialize(empty);
+
+        assertEquals(3, bytes.length);
+        assertEquals(empty, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void serialize_NullListElement_FallsBackToJson() {
+        List<Integer> weatherIds = new ArrayList<>();
+        weatherIds.add(null);
+        weatherData.setWeatherIds(weatherIds);
+
+        byte[] bytes = serializer.serialize(weatherData);
+
+        assertEquals('{', bytes[0]);
+        assertEquals(weatherData, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_EntryWrittenAsJson_IsRead() {
+        assertEquals(weatherData, serializer.deserialize(json.serialize(weatherData)));
+        assertEquals(weatherData, serializer.deserialize(new WeatherDataRedisSerializer(json, false).serialize(weatherData)));
+    }
+
+    @Test
+    void serialize_OtherValue_UsesJson() {
+        Map<String, Object> value = Map.of("key", "value");
+
+        assertArrayEquals(json.serialize(value), serializer.serialize(value));
+        assertNull(serializer.deserialize(null));
+    }
+
+    @Test
+    void deserialize_CorruptValue_Throws() {
+        byte[] bytes = serializer.serialize(weatherData);
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[1] = 99;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(Arrays.copyOf(bytes, 10)));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{WeatherDataRedisSerializer.MAGIC}));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(unknownVersion));
+    }
+
+    @Test
+    void serialize_IsSmallerThanJson() {
+        int binarySize = serializer.serialize(weatherData).length;
+        int jsonSize = json.serialize(weatherData).length;
+
+        log.info("Serialized size: json {} bytes, binary {} bytes", jsonSize, binarySize);
+        assertTrue(binarySize * 4 < jsonSize);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void serialize_IsFasterThanJson() {
+        int iterations = 200_000;
+        long jsonNanos = 0;
+        long binaryNanos = 0;
+        // First round warms up both, the last one is reported
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                json.deserialize(json.serialize(weatherData));
+            }
+            jsonNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                serializer.deserialize(serializer.serialize(weatherData));
+            }
+            binaryNanos = System.nanoTime() - start;
+        }
+
+        log.info("Serialize and deserialize: json {} ns, binary {} ns",
+                jsonNanos / iterations, binaryNanos / iterations);
+        assertTrue(binaryNanos < jsonNanos);
+    }
+}
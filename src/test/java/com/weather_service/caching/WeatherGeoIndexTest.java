@@ -0,0 +1,119 @@
+package com.weather_service.caching;
+
+import com.weather_service.metrics.WeatherMetrics;
+import com.weather_service.model.WeatherData;
+import io.lettuce.core.cluster.SlotHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoSearchCommandArgs;
+import org.springframework.data.redis.core.GeoOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherGeoIndexTest {
+
+    private static final double LAT = 56.9496;
+    private static final double LON = 24.1052;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private GeoOperations<String, String> geoOperations;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private WeatherGeoIndex weatherGeoIndex;
+
+    @BeforeEach
+    void setUp() {
+        weatherGeoIndex = new WeatherGeoIndex(redisTemplate, stringRedisTemplate, null, new WeatherMetrics(registry));
+        ReflectionTestUtils.setField(weatherGeoIndex, "lookupCandidates", 3);
+        ReflectionTestUtils.setField(weatherGeoIndex, "shardPrecision", 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findNearest_FirstMemberExpired_ReadsMembersAsKeysInShardSlot() {
+        String expired = weatherGeoIndex.valueKey(56.9500, 24.1000);
+        String live = weatherGeoIndex.valueKey(56.9480, 24.1100);
+        givenSearchReturns(candidate(expired, 0.3, 24.1000, 56.9500), candidate(live, 0.4, 24.1100, 56.9480));
+        WeatherData weatherData = new WeatherData();
+        weatherData.setTemperature(4.5);
+        when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) RedisSerializer.java());
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), isNull(), keys.capture()))
+                .thenReturn(List.of(2L, RedisSerializer.java().serialize(weatherData), 600_000L));
+
+        CachedWeather found = weatherGeoIndex.findNearest(LAT, LON, 1.0);
+
+        assertEquals(live, found.key());
+        assertEquals(4.5, found.weatherData().getTemperature());
+        assertEquals(0.4, found.distanceKm());
+        assertEquals(56.9480, found.latitude());
+        assertEquals(24.1100, found.longitude());
+        assertEquals(System.currentTimeMillis() + 600_000L, found.expiresAtMillis(), 5_000);
+        assertEquals(1.0, registry.get("weather.cache.dead.members").counter().count());
+        // Redis Cluster only runs a script on keys it declares, all in the slot of the node it is sent to
+        assertEquals(List.of(expired, live), keys.getValue());
+        int shardSlot = SlotHash.getSlot(WeatherGeoIndex.geoKey(weatherGeoIndex.shardOf(LAT, LON)));
+        assertTrue(keys.getValue().stream().allMatch(key -> SlotHash.getSlot(key) == shardSlot));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findNearest_NoMemberLive_ReturnsNullAndCountsDeadMembers() {
+        givenSearchReturns(candidate(weatherGeoIndex.valueKey(56.9500, 24.1000), 0.3, 24.1000, 56.9500),
+                candidate(weatherGeoIndex.valueKey(56.9480, 24.1100), 0.4, 24.1100, 56.9480));
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), isNull(), any(List.class)))
+                .thenReturn(List.of());
+
+        assertNull(weatherGeoIndex.findNearest(LAT, LON, 1.0));
+        assertEquals(2.0, registry.get("weather.cache.dead.members").counter().count());
+    }
+
+    @Test
+    void findNearest_NoMemberInCircle_SkipsValueRead() {
+        givenSearchReturns();
+
+        assertNull(weatherGeoIndex.findNearest(LAT, LON, 1.0));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void givenSearchReturns(GeoResult<GeoLocation<String>>... candidates) {
+        when(stringRedisTemplate.opsForGeo()).thenReturn(geoOperations);
+        when(geoOperations.search(eq(WeatherGeoIndex.geoKey(weatherGeoIndex.shardOf(LAT, LON))), any(GeoReference.class),
+                any(Distance.class), any(GeoSearchCommandArgs.class)))
+                .thenReturn(new GeoResults<>(List.of(candidates), Metrics.KILOMETERS));
+    }
+
+    private static GeoResult<GeoLocation<String>> candidate(String key, double distanceKm, double lon, double lat) {
+        return new GeoResult<>(new GeoLocation<>(key, new Point(lon, lat)), new Distance(distanceKm, Metrics.KILOMETERS));
+    }
+}
@@ -0,0 +1,112 @@
+package com.weather_service.caching;
+
+import com.weather_service.model.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherNearCacheTest {
+
+    private static final String KEY = "weather:40.0:50.0";
+    private static final Duration FRESH_FOR = Duration.ofMinutes(1);
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @InjectMocks
+    private WeatherNearCache weatherNearCache;
+
+    private CachedWeather cachedWeather;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(weatherNearCache, "ttlMinutes", 1);
+        ReflectionTestUtils.setField(weatherNearCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherNearCache, "maxSize", 100L);
+        weatherNearCache.init();
+
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLatitude(40.0);
+        weatherData.setLongitude(50.0);
+        weatherData.setTemperature(25.5);
+        cachedWeather = new CachedWeather(KEY, weatherData, 40.0, 50.0, 0.0, System.currentTimeMillis() + 60_000);
+    }
+
+    @Test
+    void get_AfterPut_ReturnsEntryByLocationAndKey() {
+        weatherNearCache.put(40.001, 50.001, cachedWeather, FRESH_FOR);
+
+        assertSame(cachedWeather, weatherNearCache.get(40.001, 50.001));
+        assertSame(cachedWeather, weatherNearCache.get(KEY));
+        assertNull(weatherNearCache.get(41.0, 51.0));
+    }
+
+    @Test
+    void invalidate_EvictsLocallyAndPublishes() {
+        weatherNearCache.put(40.0, 50.0, cachedWeather, FRESH_FOR);
+
+        weatherNearCache.invalidate(KEY);
+
+        assertNull(weatherNearCache.get(40.0, 50.0));
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(WeatherNearCache.INVALIDATION_CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("|" + KEY));
+    }
+
+    @Test
+    void onMessage_FromOtherInstance_EvictsEntry() {
+        weatherNearCache.put(40.0, 50.0, cachedWeather, FRESH_FOR);
+
+        weatherNearCache.onMessage(message("other-instance|" + KEY), null);
+
+        assertNull(weatherNearCache.get(KEY));
+    }
+
+    @Test
+    void onMessage_FromSameInstance_KeepsEntry() {
+        weatherNearCache.put(40.0, 50.0, cachedWeather, FRESH_FOR);
+        String instanceId = (String) ReflectionTestUtils.getField(weatherNearCache, "instanceId");
+
+        weatherNearCache.onMessage(message(instanceId + "|" + KEY), null);
+
+        assertSame(cachedWeather, weatherNearCache.get(KEY));
+    }
+
+    @Test
+    void put_StaleEntry_NotCached() {
+        weatherNearCache.put(40.0, 50.0, cachedWeather, Duration.ZERO);
+
+        assertNull(weatherNearCache.get(KEY));
+        assertNull(weatherNearCache.get(40.0, 50.0));
+    }
+
+    @Test
+    void get_WhenDisabled_ReturnsNull() {
+        ReflectionTestUtils.setField(weatherNearCache, "enabled", false);
+
+        weatherNearCache.put(40.0, 50.0, cachedWeather, FRESH_FOR);
+
+        assertNull(weatherNearCache.get(40.0, 50.0));
+        assertNull(weatherNearCache.get(KEY));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(WeatherNearCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
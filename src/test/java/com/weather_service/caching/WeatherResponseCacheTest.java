@@ -0,0 +1,85 @@
+package com.weather_service.caching;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_service.model.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherResponseCacheTest {
+
+    private static final String KEY = "weather:40.0:50.0";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private WeatherResponseCache weatherResponseCache;
+    private WeatherData weatherData;
+
+    @BeforeEach
+    void setUp() {
+        weatherResponseCache = new WeatherResponseCache(objectMapper);
+        ReflectionTestUtils.setField(weatherResponseCache, "ttlMinutes", 1);
+        ReflectionTestUtils.setField(weatherResponseCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherResponseCache, "maxSize", 100L);
+        weatherResponseCache.init();
+
+        weatherData = new WeatherData();
+        weatherData.setLatitude(40.0);
+        weatherData.setLongitude(50.0);
+        weatherData.setWeatherIds(List.of(500));
+        weatherData.setWeatherDescriptions(List.of("light rain"));
+        weatherData.setTemperature(25.5);
+        weatherData.setHumidity(80);
+        weatherData.setSunrise(LocalDateTime.of(2020, 11, 19, 12, 40));
+    }
+
+    @Test
+    void render_MatchesObjectMapperOutput() throws Exception {
+        assertArrayEquals(objectMapper.writeValueAsBytes(weatherData), weatherResponseCache.render(KEY, weatherData).json());
+    }
+
+    @Test
+    void render_EqualData_ReusesBody() {
+        WeatherResponseCache.Rendered first = weatherResponseCache.render(KEY, weatherData);
+        WeatherData copy = objectMapper.convertValue(weatherData, WeatherData.class);
+
+        assertSame(first, weatherResponseCache.render(KEY, copy));
+    }
+
+    @Test
+    void render_RefreshedData_RendersAgainWithNewETag() throws Exception {
+        WeatherResponseCache.Rendered first = weatherResponseCache.render(KEY, weatherData);
+        WeatherData refreshed = objectMapper.convertValue(weatherData, WeatherData.class);
+        refreshed.setTemperature(25.6);
+
+        WeatherResponseCache.Rendered second = weatherResponseCache.render(KEY, refreshed);
+
+        assertNotSame(first, second);
+        assertArrayEquals(objectMapper.writeValueAsBytes(refreshed), second.json());
+        assertNotEquals(first.eTag(), second.eTag());
+    }
+
+    @Test
+    void render_SameBody_SameETagUnderAnyKey() {
+        String eTag = weatherResponseCache.render(KEY, weatherData).eTag();
+
+        assertEquals(eTag, weatherResponseCache.render("weather:other", weatherData).eTag());
+        assertTrue(eTag.matches("\"[0-9a-f]{32}\""));
+    }
+
+    @Test
+    void render_Disabled_RendersWithoutReusing() {
+        ReflectionTestUtils.setField(weatherResponseCache, "enabled", false);
+
+        WeatherResponseCache.Rendered first = weatherResponseCache.render(KEY, weatherData);
+        WeatherResponseCache.Rendered second = weatherResponseCache.render(KEY, weatherData);
+
+        assertNotSame(first, second);
+        assertEquals(first.eTag(), second.eTag());
+    }
+}
@@ -0,0 +1,163 @@
+package com.weather_service.client;
+
+import com.weather_service.handler.UpstreamException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamSchedulerTest {
+
+    private UpstreamScheduler upstreamScheduler;
+
+    @BeforeEach
+    void setUp() {
+        upstreamScheduler = new UpstreamScheduler();
+        ReflectionTestUtils.setField(upstreamScheduler, "enabled", true);
+        // One token every 100 ms
+        ReflectionTestUtils.setField(upstreamScheduler, "callsPerMinute", 600);
+        ReflectionTestUtils.setField(upstreamScheduler, "burst", 2);
+        ReflectionTestUtils.setField(upstreamScheduler, "userMaxWaitMs", 1000L);
+        ReflectionTestUtils.setField(upstreamScheduler, "refreshMaxWaitMs", 1000L);
+        upstreamScheduler.init();
+    }
+
+    @Test
+    void call_WithinBurst_RunsRightAway() {
+        AtomicInteger calls = new AtomicInteger();
+
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, calls::incrementAndGet);
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void call_WaitLongerThanMaxWait_RejectedWithoutCalling() {
+        ReflectionTestUtils.setField(upstreamScheduler, "userMaxWaitMs", 50L);
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        UpstreamException exception = assertThrows(UpstreamException.class,
+                () -> upstreamScheduler.call(UpstreamScheduler.Priority.USER, calls::incrementAndGet));
+
+        assertEquals(UpstreamException.Reason.THROTTLED, exception.getReason());
+        assertEquals(0, calls.get());
+        assertTrue(System.nanoTime() - start < 50_000_000L, "Rejection should not wait for the deadline");
+    }
+
+    @Test
+    void call_UserQueuedAfterRefresh_GetsTokenFirst() throws Exception {
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+        List<UpstreamScheduler.Priority> order = new CopyOnWriteArrayList<>();
+
+        Thread refresh = Thread.ofVirtual().start(() -> upstreamScheduler.call(UpstreamScheduler.Priority.REFRESH,
+                () -> order.add(UpstreamScheduler.Priority.REFRESH)));
+        awaitQueued(UpstreamScheduler.Priority.REFRESH);
+        Thread user = Thread.ofVirtual().start(() -> upstreamScheduler.call(UpstreamScheduler.Priority.USER,
+                () -> order.add(UpstreamScheduler.Priority.USER)));
+        refresh.join();
+        user.join();
+
+        assertEquals(List.of(UpstreamScheduler.Priority.USER, UpstreamScheduler.Priority.REFRESH), order);
+    }
+
+    @Test
+    void call_ProviderRejectsForQuota_StopsFurtherCalls() {
+        ReflectionTestUtils.setField(upstreamScheduler, "userMaxWaitMs", 50L);
+        UpstreamException quotaExceeded = new UpstreamException(UpstreamException.Reason.THROTTLED, "status 429",
+                new IllegalStateException("429"));
+
+        assertThrows(UpstreamException.class, () -> upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> {
+            throw quotaExceeded;
+        }));
+
+        // One token was left in the burst, the 429 took it away
+        UpstreamException exception = assertThrows(UpstreamException.class,
+                () -> upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1));
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void callReactive_NoToken_WaitsForRefillWithoutHoldingAThread() {
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        Mono<Integer> call = upstreamScheduler.callReactive(UpstreamScheduler.Priority.USER,
+                () -> Mono.fromCallable(calls::incrementAndGet));
+        StepVerifier.create(call)
+                .then(() -> assertEquals(1, upstreamScheduler.queueDepth(UpstreamScheduler.Priority.USER)))
+                .expectNext(1)
+                .verifyComplete();
+
+        assertTrue(System.nanoTime() - start >= 80_000_000L, "Call should wait for the next token");
+        assertEquals(0, upstreamScheduler.queueDepth(UpstreamScheduler.Priority.USER));
+    }
+
+    @Test
+    void callReactive_WaitLongerThanMaxWait_RejectedWithoutCalling() {
+        // One token a second, so refills while the reservations are made do not matter
+        ReflectionTestUtils.setField(upstreamScheduler, "callsPerMinute", 60);
+        ReflectionTestUtils.setField(upstreamScheduler, "userMaxWaitMs", 1500L);
+        AtomicInteger calls = new AtomicInteger();
+        // Two from the burst, one reserved for the next refill, the fourth would wait 2 s
+        for (int i = 0; i < 3; i++) {
+            upstreamScheduler.callReactive(UpstreamScheduler.Priority.USER, () -> Mono.fromCallable(calls::incrementAndGet))
+                    .subscribe();
+        }
+
+        StepVerifier.create(upstreamScheduler.callReactive(UpstreamScheduler.Priority.USER,
+                        () -> Mono.fromCallable(calls::incrementAndGet)))
+                .expectErrorSatisfies(e -> assertEquals(UpstreamException.Reason.THROTTLED, ((UpstreamException) e).getReason()))
+                .verify(Duration.ofMillis(500));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void callReactive_CancelledWhileWaiting_GivesTokenBack() {
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+        upstreamScheduler.call(UpstreamScheduler.Priority.USER, () -> 1);
+
+        StepVerifier.create(upstreamScheduler.callReactive(UpstreamScheduler.Priority.USER, () -> Mono.just(1)))
+                .thenCancel()
+                .verify();
+        ReflectionTestUtils.setField(upstreamScheduler, "userMaxWaitMs", 150L);
+
+        // Without the cancelled reservation the next call waits one refill, not two
+        StepVerifier.create(upstreamScheduler.callReactive(UpstreamScheduler.Priority.USER, () -> Mono.just(2)))
+                .expectNext(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void bindTo_RegistersQueueDepthPerPriority() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        upstreamScheduler.bindTo(registry);
+
+        assertEquals(0, registry.get("weather.upstream.queue.depth").tag("priority", "user").gauge().value());
+        assertEquals(0, registry.get("weather.upstream.queue.depth").tag("priority", "refresh").gauge().value());
+    }
+
+    private void awaitQueued(UpstreamScheduler.Priority priority) throws InterruptedException {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (upstreamScheduler.queueDepth(priority) == 0) {
+            assertTrue(System.nanoTime() < deadline, "Call was never queued");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.weather_service.client;
+
+import com.weather_service.handler.UpstreamException;
+import com.weather_service.metrics.WeatherMetrics;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherDataClientTest {
+
+    private final AtomicReference<Mono<ClientResponse>> response = new AtomicReference<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CircuitBreaker circuitBreaker;
+    private WeatherDataClient weatherDataClient;
+
+    @BeforeEach
+    void setUp() {
+        WebClientConfig webClientConfig = new WebClientConfig();
+        ReflectionTestUtils.setField(webClientConfig, "failureRateThreshold", 50f);
+        ReflectionTestUtils.setField(webClientConfig, "slidingWindowSize", 4);
+        ReflectionTestUtils.setField(webClientConfig, "minimumCalls", 4);
+        ReflectionTestUtils.setField(webClientConfig, "openMs", 60_000L);
+        ReflectionTestUtils.setField(webClientConfig, "halfOpenCalls", 1);
+        circuitBreaker = webClientConfig.upstreamCircuitBreaker(webClientConfig.circuitBreakerRegistry());
+
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return response.get();
+                })
+                .build();
+        weatherDataClient = new WeatherDataClient(webClient, circuitBreaker, new WeatherMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(weatherDataClient, "weatherApiUrl", "http://localhost/data/2.5/weather");
+        ReflectionTestUtils.setField(weatherDataClient, "apiKey", "key");
+        ReflectionTestUtils.setField(weatherDataClient, "deadlineMs", 200L);
+    }
+
+    @Test
+    void getWeatherData_Ok_ReturnsBody() {
+        response.set(Mono.just(ClientResponse.create(HttpStatus.OK).body("{}").build()));
+
+        assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8), weatherDataClient.getWeatherData(40.0, 50.0));
+    }
+
+    @Test
+    void getWeatherData_ServerError_ThrowsServerError() {
+        response.set(Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()));
+
+        UpstreamException exception = assertThrows(UpstreamException.class, () -> weatherDataClient.getWeatherData(40.0, 50.0));
+
+        assertEquals(UpstreamException.Reason.SERVER_ERROR, exception.getReason());
+        assertEquals("status 503", exception.getDetail());
+    }
+
+    @Test
+    void getWeatherData_NoResponseBeforeDeadline_ThrowsTimeout() {
+        response.set(Mono.never());
+
+        UpstreamException exception = assertThrows(UpstreamException.class, () -> weatherDataClient.getWeatherData(40.0, 50.0));
+
+        assertEquals(UpstreamException.Reason.TIMEOUT, exception.getReason());
+    }
+
+    @Test
+    void getWeatherData_ClientErrors_DoNotOpenCircuit() {
+        response.set(Mono.just(ClientResponse.create(HttpStatus.UNAUTHORIZED).build()));
+
+        for (int i = 0; i < 6; i++) {
+            UpstreamException exception = assertThrows(UpstreamException.class, () -> weatherDataClient.getWeatherData(40.0, 50.0));
+            assertEquals(UpstreamException.Reason.CLIENT_ERROR, exception.getReason());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void getWeatherData_TooManyRequests_ThrottledWithoutOpeningCircuit() {
+        response.set(Mono.just(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).build()));
+
+        for (int i = 0; i < 6; i++) {
+            UpstreamException exception = assertThrows(UpstreamException.class, () -> weatherDataClient.getWeatherData(40.0, 50.0));
+            assertEquals(UpstreamException.Reason.THROTTLED, exception.getReason());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void getWeatherData_RepeatedServerErrors_OpenCircuitAndFailFast() {
+        response.set(Mono.just(ClientResponse.create(HttpStatus.BAD_GATEWAY).build()));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(UpstreamException.class, () -> weatherDataClient.getWeatherData(40.0, 50.0));
+        }
+
+        UpstreamException exception = assertThrows(UpstreamException.class, () -> weatherDataClient.getWeatherData(40.0, 50.0));
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(UpstreamException.Reason.UNAVAILABLE, exception.getReason());
+        assertEquals(4, calls.get());
+    }
+}
@@ -1,23 +1,42 @@
 package com.weather_service.controller;
 
+import com.weather_service.caching.WeatherResponseCache;
+import com.weather_service.handler.BadRequestException;
 import com.weather_service.handler.GlobalExceptionHandler;
+import com.weather_service.handler.UpstreamException;
+import com.weather_service.model.BatchWeatherResult;
+import com.weather_service.model.Coordinates;
 import com.weather_service.model.WeatherData;
+import com.weather_service.service.WeatherEntry;
 import com.weather_service.service.WeatherService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +47,9 @@ class WeatherControllerTest {
     @Mock
     private WeatherService weatherService;
 
+    @Spy
+    private WeatherResponseCache weatherResponseCache = new WeatherResponseCache(Jackson2ObjectMapperBuilder.json().build());
+
     @InjectMocks
     private WeatherController weatherController;
 
@@ -37,6 +59,10 @@ class WeatherControllerTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(weatherResponseCache, "ttlMinutes", 1);
+        ReflectionTestUtils.setField(weatherResponseCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherResponseCache, "maxSize", 10L);
+        weatherResponseCache.init();
         this.mockMvc = MockMvcBuilders.standaloneSetup(weatherController)
                 .setControllerAdvice(new GlobalExceptionHandler())
                 .build();
@@ -57,7 +83,8 @@ class WeatherControllerTest {
 
     @Test
     void testGetWeather_Success() throws Exception {
-        when(weatherService.getWeatherData(64.049075, -16.181418)).thenReturn(weatherData);
+        WeatherEntry entry = new WeatherEntry("weather:64.05:-16.18", weatherData, Duration.ofSeconds(120));
+        when(weatherService.getWeatherEntry(64.049075, -16.181418)).thenReturn(entry);
 
         mockMvc.perform(get(URL)
                         .param("lat", "64.049075")
@@ -69,9 +96,76 @@ class WeatherControllerTest {
                 .andExpect(jsonPath("$.temperature").value(15.0))
                 .andExpect(jsonPath("$.humidity").value(85))
                 .andExpect(jsonPath("$.windSpeed").value(5.5))
-                .andExpect(jsonPath("$.cloudiness").value(50));
+                .andExpect(jsonPath("$.cloudiness").value(50))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=120, private"));
+
+        verify(weatherService, times(1)).getWeatherEntry(64.049075, -16.181418);
+    }
+
+    @Test
+    void testGetWeather_MatchingETag_NotModifiedWithoutBody() throws Exception {
+        WeatherEntry entry = new WeatherEntry("weather:64.05:-16.18", weatherData, Duration.ofSeconds(120));
+        when(weatherService.getWeatherEntry(64.049075, -16.181418)).thenReturn(entry);
+        String eTag = eTag();
+
+        mockMvc.perform(get(URL)
+                        .param("lat", "64.049075")
+                        .param("lon", "-16.181418")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=120, private"));
+    }
+
+    @Test
+    void testGetWeather_ChangedData_NewETagAndFullResponse() throws Exception {
+        when(weatherService.getWeatherEntry(64.049075, -16.181418))
+                .thenReturn(new WeatherEntry("weather:64.05:-16.18", weatherData, Duration.ofSeconds(120)));
+        String eTag = eTag();
 
-        verify(weatherService, times(1)).getWeatherData(64.049075, -16.181418);
+        WeatherData refreshed = Jackson2ObjectMapperBuilder.json().build().convertValue(weatherData, WeatherData.class);
+        refreshed.setTemperature(15.1);
+        when(weatherService.getWeatherEntry(64.049075, -16.181418))
+                .thenReturn(new WeatherEntry("weather:64.05:-16.18", refreshed, Duration.ofSeconds(120)));
+
+        mockMvc.perform(get(URL)
+                        .param("lat", "64.049075")
+                        .param("lon", "-16.181418")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.temperature").value(15.1))
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    void testGetWeather_RenderedBody_SameAsObjectRendering() throws Exception {
+        WeatherEntry entry = new WeatherEntry("weather:64.05:-16.18", weatherData, Duration.ofSeconds(120));
+        when(weatherService.getWeatherEntry(64.049075, -16.181418)).thenReturn(entry);
+        doReturn(null).when(weatherResponseCache).render(entry.key(), weatherData);
+        byte[] objectBody = mockMvc.perform(get(URL).param("lat", "64.049075").param("lon", "-16.181418"))
+                .andReturn().getResponse().getContentAsByteArray();
+        reset(weatherResponseCache);
+
+        mockMvc.perform(get(URL).param("lat", "64.049075").param("lon", "-16.181418"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().bytes(objectBody))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testGetWeather_StaleEntry_MustRevalidate() throws Exception {
+        WeatherEntry entry = new WeatherEntry("weather:64.05:-16.18", weatherData, Duration.ofSeconds(-30));
+        when(weatherService.getWeatherEntry(64.049075, -16.181418)).thenReturn(entry);
+
+        mockMvc.perform(get(URL)
+                        .param("lat", "64.049075")
+                        .param("lon", "-16.181418")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, private"));
     }
 
     @Test
@@ -81,12 +175,12 @@ class WeatherControllerTest {
                         .param("lon", "-16.181418"))
                 .andExpect(status().isBadRequest());
 
-        verify(weatherService, never()).getWeatherData(anyDouble(), anyDouble());
+        verify(weatherService, never()).getWeatherEntry(anyDouble(), anyDouble());
     }
 
     @Test
     void testGetWeather_ServiceThrowsException() throws Exception {
-        when(weatherService.getWeatherData(64.049075, -16.181418)).thenThrow(new RuntimeException("Unexpected error"));
+        when(weatherService.getWeatherEntry(64.049075, -16.181418)).thenThrow(new RuntimeException("Unexpected error"));
 
         mockMvc.perform(get(URL)
                         .param("lat", "64.049075")
@@ -94,6 +188,84 @@ class WeatherControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string("An unexpected error occurred. Please try again later."));
 
-        verify(weatherService, times(1)).getWeatherData(64.049075, -16.181418);
+        verify(weatherService, times(1)).getWeatherEntry(64.049075, -16.181418);
+    }
+
+    @Test
+    void testGetWeather_UpstreamTimeout_GatewayTimeout() throws Exception {
+        when(weatherService.getWeatherEntry(64.049075, -16.181418)).thenThrow(
+                new UpstreamException(UpstreamException.Reason.TIMEOUT, "deadline", null));
+
+        mockMvc.perform(get(URL)
+                        .param("lat", "64.049075")
+                        .param("lon", "-16.181418"))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(content().string("Weather provider did not respond in time."));
+    }
+
+    @Test
+    void testGetWeatherReactive_Success() throws Exception {
+        when(weatherService.getWeatherDataReactive(64.049075, -16.181418)).thenReturn(Mono.just(weatherData));
+
+        MvcResult result = mockMvc.perform(get(URL + "/reactive")
+                        .param("lat", "64.049075")
+                        .param("lon", "-16.181418"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.temperature").value(15.0));
+    }
+
+    @Test
+    void testGetWeatherReactive_NoData_BadRequest() throws Exception {
+        when(weatherService.getWeatherDataReactive(64.049075, -16.181418))
+                .thenReturn(Mono.error(new BadRequestException("No weather data found.")));
+
+        MvcResult result = mockMvc.perform(get(URL + "/reactive")
+                        .param("lat", "64.049075")
+                        .param("lon", "-16.181418"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("No weather data found."));
+    }
+
+    @Test
+    void testGetWeatherBatch_Success() throws Exception {
+        Coordinates found = new Coordinates(64.049075, -16.181418);
+        Coordinates failed = new Coordinates(10.0, 10.0);
+        when(weatherService.getWeatherData(List.of(found, failed))).thenReturn(List.of(
+                BatchWeatherResult.success(found, weatherData),
+                BatchWeatherResult.failure(failed, "No weather data found.")));
+
+        mockMvc.perform(post(URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"lat\": 64.049075, \"lon\": -16.181418}, {\"lat\": 10.0, \"lon\": 10.0}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].weatherData.temperature").value(15.0))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].lat").value(10.0))
+                .andExpect(jsonPath("$[1].error").value("No weather data found."))
+                .andExpect(jsonPath("$[1].weatherData").doesNotExist());
+    }
+
+    @Test
+    void testGetWeatherBatch_TooManyCoordinates() throws Exception {
+        when(weatherService.getWeatherData(anyList())).thenThrow(new BadRequestException("Too many coordinates, at most 100 are allowed."));
+
+        mockMvc.perform(post(URL + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"lat\": 1.0, \"lon\": 1.0}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Too many coordinates, at most 100 are allowed."));
+    }
+
+    private String eTag() throws Exception {
+        return mockMvc.perform(get(URL).param("lat", "64.049075").param("lon", "-16.181418"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
     }
 }
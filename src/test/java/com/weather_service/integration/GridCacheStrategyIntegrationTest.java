@@ -0,0 +1,97 @@
+package com.weather_service.integration;
+
+import com.weather_service.TestcontainersConfiguration;
+import com.weather_service.caching.CacheConfig;
+import com.weather_service.caching.CachedWeather;
+import com.weather_service.caching.GridCacheStrategy;
+import com.weather_service.caching.WeatherCacheStrategy;
+import com.weather_service.caching.WeatherNearCache;
+import com.weather_service.model.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(initializers = TestcontainersConfiguration.Initializer.class)
+@Import({CacheConfig.class, WeatherNearCache.class, GridCacheStrategy.class})
+@ImportAutoConfiguration(classes = {
+        CacheAutoConfiguration.class,
+        RedisAutoConfiguration.class
+})
+@TestPropertySource(properties = {"weather.cache.strategy=grid", "weather.cache.distance=1.0"})
+class GridCacheStrategyIntegrationTest {
+
+    @Autowired
+    private WeatherCacheStrategy weatherCacheStrategy;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(weatherCacheStrategy, "probeNeighbours", false);
+    }
+
+    @Test
+    void find_SameCell_ReturnsEntryWithSingleKeyRead() {
+        WeatherData weatherData = store(48.8566, 2.3522, 17.0);
+
+        CachedWeather cached = weatherCacheStrategy.find(48.8566, 2.3522);
+
+        assertNotNull(cached);
+        assertEquals(weatherCacheStrategy.key(48.8566, 2.3522), cached.key());
+        assertEquals(weatherData, cached.weatherData());
+        assertTrue(cached.ttlMillis() > 0);
+    }
+
+    @Test
+    void find_NeighbourCell_OnlyWithProbe() {
+        store(52.5200, 13.4050, 12.0);
+        // ~110m north, across the boundary into the next row of cells
+        double lat = 52.5210;
+        double lon = 13.4050;
+        assertNotEquals(weatherCacheStrategy.key(52.5200, 13.4050), weatherCacheStrategy.key(lat, lon));
+
+        assertNull(weatherCacheStrategy.find(lat, lon));
+
+        ReflectionTestUtils.setField(weatherCacheStrategy, "probeNeighbours", true);
+        CachedWeather cached = weatherCacheStrategy.find(lat, lon);
+
+        assertNotNull(cached);
+        assertEquals(12.0, cached.weatherData().getTemperature());
+        assertTrue(cached.distanceKm() <= 1.0);
+    }
+
+    @Test
+    void find_EmptyCell_ReturnsNull() {
+        ReflectionTestUtils.setField(weatherCacheStrategy, "probeNeighbours", true);
+
+        assertNull(weatherCacheStrategy.find(-45.0, -120.0));
+    }
+
+    private WeatherData store(double lat, double lon, double temperature) {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLatitude(lat);
+        weatherData.setLongitude(lon);
+        weatherData.setTemperature(temperature);
+
+        String weatherKey = weatherCacheStrategy.key(lat, lon);
+        redisTemplate.opsForValue().set(weatherKey, weatherData, Duration.ofMinutes(1));
+        weatherCacheStrategy.index(lat, lon, weatherKey, Duration.ofMinutes(1));
+        return weatherData;
+    }
+}
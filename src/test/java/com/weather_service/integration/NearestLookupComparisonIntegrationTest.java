@@ -0,0 +1,168 @@
+package com.weather_service.integration;
+
+import com.weather_service.TestcontainersConfiguration;
+import com.weather_service.caching.CacheConfig;
+import com.weather_service.caching.CachedWeather;
+import com.weather_service.caching.WeatherGeoIndex;
+import com.weather_service.caching.WeatherNearCache;
+import com.weather_service.metrics.WeatherMetrics;
+import com.weather_service.model.WeatherData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the index lookup, a server-sorted and limited GEOSEARCH followed by a script reading the first live
+ * member, with the previous two-call lookup (GEORADIUS of the whole circle, client-side minimum, then GET) over a
+ * dense area.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(initializers = TestcontainersConfiguration.Initializer.class)
+@Import({CacheConfig.class, WeatherNearCache.class, WeatherGeoIndex.class, WeatherMetrics.class,
+        SimpleMeterRegistry.class})
+@ImportAutoConfiguration(classes = {
+        CacheAutoConfiguration.class,
+        RedisAutoConfiguration.class
+})
+class NearestLookupComparisonIntegrationTest {
+
+    private static final Logger log = LogManager.getLogger(NearestLookupComparisonIntegrationTest.class);
+
+    private static final double CENTER_LAT = -33.8688;
+    private static final double CENTER_LON = 151.2093;
+    private static final double RADIUS_KM = 1.0;
+    private static final int DENSE_ENTRIES = 500;
+    private static final int QUERIES = 100;
+
+    @Autowired
+    private WeatherGeoIndex weatherGeoIndex;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final List<String> seededKeys = new ArrayList<>();
+
+    @BeforeEach
+    void seedDenseArea() {
+        Random random = new Random(42);
+        for (int i = 0; i < DENSE_ENTRIES; i++) {
+            double lat = CENTER_LAT + (random.nextDouble() - 0.5) * 0.012;
+            double lon = CENTER_LON + (random.nextDouble() - 0.5) * 0.012;
+            String weatherKey = weatherGeoIndex.valueKey(lat, lon);
+
+            WeatherData weatherData = new WeatherData();
+            weatherData.setLatitude(lat);
+            weatherData.setLongitude(lon);
+            weatherData.setTemperature(20.0 + i % 10);
+
+            redisTemplate.opsForValue().set(weatherKey, weatherData, Duration.ofMinutes(5));
+            weatherGeoIndex.add(lat, lon, weatherKey, Duration.ofMinutes(5));
+            seededKeys.add(weatherKey);
+        }
+    }
+
+    @AfterEach
+    void removeDenseArea() {
+        Object[] members = seededKeys.toArray();
+        String shard = weatherGeoIndex.shardOf(CENTER_LAT, CENTER_LON);
+        stringRedisTemplate.opsForGeo().remove(WeatherGeoIndex.geoKey(shard), seededKeys.toArray(String[]::new));
+        stringRedisTemplate.opsForZSet().remove(WeatherGeoIndex.expiryKey(shard), members);
+        redisTemplate.delete(seededKeys);
+        seededKeys.clear();
+    }
+
+    @Test
+    void findNearest_ReturnsSameEntryAsTwoCallLookup() {
+        Random random = new Random(7);
+        long indexNanos = 0;
+        long twoCallNanos = 0;
+
+        for (int i = 0; i < QUERIES; i++) {
+            double lat = CENTER_LAT + (random.nextDouble() - 0.5) * 0.01;
+            double lon = CENTER_LON + (random.nextDouble() - 0.5) * 0.01;
+
+            long start = System.nanoTime();
+            String twoCallKey = twoCallLookup(lat, lon);
+            twoCallNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            CachedWeather nearest = weatherGeoIndex.findNearest(lat, lon, RADIUS_KM);
+            indexNanos += System.nanoTime() - start;
+
+            assertNotNull(nearest);
+            assertEquals(twoCallKey, nearest.key());
+            assertNotNull(nearest.weatherData());
+            assertTrue(nearest.distanceKm() <= RADIUS_KM);
+            assertTrue(nearest.ttlMillis() > 0);
+        }
+
+        log.info("Nearest lookup over {} dense entries: two-call avg {} us, index avg {} us",
+                DENSE_ENTRIES, twoCallNanos / QUERIES / 1000, indexNanos / QUERIES / 1000);
+    }
+
+    @Test
+    void findNearest_SkipsMemberWhoseValueExpired() {
+        String closestKey = twoCallLookup(CENTER_LAT, CENTER_LON);
+        redisTemplate.delete(closestKey);
+
+        CachedWeather nearest = weatherGeoIndex.findNearest(CENTER_LAT, CENTER_LON, RADIUS_KM);
+
+        assertNotNull(nearest);
+        assertNotEquals(closestKey, nearest.key());
+        // The two-call path resolves the dead member and turns the hit into a miss
+        assertNull(redisTemplate.opsForValue().get(closestKey));
+    }
+
+    @Test
+    void findNearest_NothingInRadius_ReturnsNull() {
+        assertNull(weatherGeoIndex.findNearest(-33.0, 150.0, RADIUS_KM));
+    }
+
+    // The lookup as it was before the index limited the search: every member in the circle, sorted on the client, then a GET
+    private String twoCallLookup(double lat, double lon) {
+        Circle circle = new Circle(new Point(lon, lat), new Distance(RADIUS_KM, RedisGeoCommands.DistanceUnit.KILOMETERS));
+        GeoResults<RedisGeoCommands.GeoLocation<String>> results = stringRedisTemplate.opsForGeo().radius(
+                WeatherGeoIndex.geoKey(weatherGeoIndex.shardOf(lat, lon)), circle, RedisGeoCommands.GeoRadiusCommandArgs.newGeoRadiusArgs().includeDistance());
+        assertNotNull(results);
+
+        String closestKey = results.getContent().stream()
+                .min(Comparator.comparing((GeoResult<RedisGeoCommands.GeoLocation<String>> geoResult) ->
+                        geoResult.getDistance().getValue()))
+                .map(geoResult -> geoResult.getContent().getName())
+                .orElse(null);
+        if (closestKey != null) {
+            redisTemplate.opsForValue().get(closestKey);
+        }
+        return closestKey;
+    }
+}
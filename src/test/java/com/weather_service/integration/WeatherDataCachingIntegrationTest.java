@@ -1,11 +1,24 @@
 package com.weather_service.integration;
 
 import com.weather_service.TestcontainersConfiguration;
+import com.weather_service.caching.AdaptiveRadius;
 import com.weather_service.caching.CacheConfig;
+import com.weather_service.caching.GeoIndexSweeper;
+import com.weather_service.caching.RadiusCacheStrategy;
+import com.weather_service.caching.WeatherGeoIndex;
+import com.weather_service.caching.WeatherNearCache;
+import com.weather_service.client.UpstreamScheduler;
 import com.weather_service.client.WeatherDataClient;
 import com.weather_service.handler.BadRequestException;
+import com.weather_service.metrics.WeatherMetrics;
+import com.weather_service.model.BatchWeatherResult;
+import com.weather_service.model.Coordinates;
 import com.weather_service.model.WeatherData;
+import com.weather_service.service.BackgroundRefresher;
+import com.weather_service.service.InFlightRequestRegistry;
+import com.weather_service.service.PopularityTracker;
 import com.weather_service.service.WeatherService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,11 +30,15 @@ import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
@@ -32,7 +49,11 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(initializers = TestcontainersConfiguration.Initializer.class)
-@Import({CacheConfig.class, WeatherService.class})
+@Import({CacheConfig.class, WeatherNearCache.class, InFlightRequestRegistry.class, WeatherService.class,
+        WeatherGeoIndex.class, RadiusCacheStrategy.class, GeoIndexSweeper.class, BackgroundRefresher.class,
+        PopularityTracker.class, WeatherMetrics.class, SimpleMeterRegistry.class, UpstreamScheduler.class,
+        AdaptiveRadius.class})
+@TestPropertySource(properties = "weather.upstream.quota.enabled=false")
 @EnableCaching
 @ImportAutoConfiguration(classes = {
         CacheAutoConfiguration.class,
@@ -49,9 +70,18 @@ class WeatherDataCachingIntegrationTest {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private GeoIndexSweeper geoIndexSweeper;
+
+    @Autowired
+    private WeatherGeoIndex weatherGeoIndex;
+
     @BeforeEach
     void setUp() {
         cacheManager.getCacheNames()
@@ -75,12 +105,12 @@ class WeatherDataCachingIntegrationTest {
         expectedWeatherData.setSunrise(LocalDateTime.of(2021, 10, 1, 10, 20));
         expectedWeatherData.setSunset(LocalDateTime.of(2021, 10, 1, 22, 20));
 
-        when(weatherDataClient.getWeatherData(lat, lon)).thenReturn(
+        when(weatherDataClient.getWeatherData(lat, lon)).thenReturn((
                 "{\"coord\": {\"lat\": 40.7128, \"lon\": -74.0060}, \"weather\": [{\"id\": 800, \"description\": \"clear sky\"}], " +
                         "\"main\": {\"temp\": 25, \"humidity\": 50}, " +
                         "\"wind\": {\"speed\": 5}, " +
                         "\"clouds\": {\"all\": 0}, " +
-                        "\"sys\": {\"sunrise\": 1633072800, \"sunset\": 1633116000}}"
+                        "\"sys\": {\"sunrise\": 1633072800, \"sunset\": 1633116000}}").getBytes(StandardCharsets.UTF_8)
         );
 
         WeatherData cacheMiss = weatherService.getWeatherData(lat, lon);
@@ -182,4 +212,72 @@ class WeatherDataCachingIntegrationTest {
         String closestWeatherKey = "weather:" + weatherData1.getLatitude() + ":" + weatherData1.getLongitude();
         assertEquals("weather:54.89178:23.95768", closestWeatherKey);
     }
+
+    @Test
+    void whenValueKeyExpired_thenSweeperRemovesGeoMember() {
+        double lat = 35.6762;
+        double lon = 139.6503;
+        String weatherKey = weatherGeoIndex.valueKey(lat, lon);
+        String shard = weatherGeoIndex.shardOf(lat, lon);
+
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLatitude(lat);
+        weatherData.setLongitude(lon);
+        weatherData.setTemperature(18.0);
+        weatherService.cacheWeatherData(lat, lon, weatherData);
+
+        // Simulate the value key expiring
+        redisTemplate.delete(weatherKey);
+        stringRedisTemplate.opsForZSet().add(WeatherGeoIndex.expiryKey(shard), weatherKey, System.currentTimeMillis() - 1);
+
+        geoIndexSweeper.sweep();
+
+        assertTrue(stringRedisTemplate.opsForGeo().position(WeatherGeoIndex.geoKey(shard), weatherKey).stream().allMatch(Objects::isNull));
+        assertNull(stringRedisTemplate.opsForZSet().score(WeatherGeoIndex.expiryKey(shard), weatherKey));
+    }
+
+    @Test
+    void whenGetWeatherDataReactive_thenMissFetchedOnceAndNearbyHitServedFromRedis() {
+        double lat = 48.2082;
+        double lon = 16.3738;
+        when(weatherDataClient.getWeatherDataReactive(lat, lon)).thenReturn(Mono.just((
+                "{\"coord\": {\"lat\": 48.2082, \"lon\": 16.3738}, \"weather\": [], \"main\": {\"temp\": 14, \"humidity\": 60}, " +
+                        "\"wind\": {\"speed\": 2}, \"clouds\": {\"all\": 20}, \"sys\": {\"sunrise\": 1633072800, \"sunset\": 1633116000}}").getBytes(StandardCharsets.UTF_8)));
+
+        WeatherData cacheMiss = weatherService.getWeatherDataReactive(lat, lon).block();
+        // A different point nearby is not in the near cache, so it goes through the reactive geo lookup
+        WeatherData cacheHit = weatherService.getWeatherDataReactive(48.2085, 16.3741).block();
+
+        assertNotNull(cacheMiss);
+        assertEquals(14.0, cacheMiss.getTemperature());
+        assertEquals(cacheMiss, cacheHit);
+        verify(weatherDataClient, times(1)).getWeatherDataReactive(anyDouble(), anyDouble());
+    }
+
+    @Test
+    void whenGetWeatherDataBatch_thenHitsServedFromCacheAndMissesFetched() {
+        WeatherData cached = new WeatherData();
+        cached.setLatitude(59.3293);
+        cached.setLongitude(18.0686);
+        cached.setTemperature(9.0);
+        weatherService.cacheWeatherData(59.3293, 18.0686, cached);
+
+        when(weatherDataClient.getWeatherData(60.1699, 24.9384)).thenReturn((
+                "{\"coord\": {\"lat\": 60.1699, \"lon\": 24.9384}, \"weather\": [], \"main\": {\"temp\": 7, \"humidity\": 70}, " +
+                        "\"wind\": {\"speed\": 3}, \"clouds\": {\"all\": 40}, \"sys\": {\"sunrise\": 1633072800, \"sunset\": 1633116000}}").getBytes(StandardCharsets.UTF_8));
+        when(weatherDataClient.getWeatherData(64.1466, -21.9426)).thenReturn(null);
+
+        List<BatchWeatherResult> results = weatherService.getWeatherData(List.of(
+                new Coordinates(59.3296, 18.0690),
+                new Coordinates(60.1699, 24.9384),
+                new Coordinates(64.1466, -21.9426),
+                new Coordinates(95.0, 0.0)));
+
+        assertEquals(4, results.size());
+        assertEquals(9.0, results.get(0).getWeatherData().getTemperature());
+        assertEquals(7.0, results.get(1).getWeatherData().getTemperature());
+        assertEquals("No weather data found.", results.get(2).getError());
+        assertEquals("Invalid coordinates.", results.get(3).getError());
+        verify(weatherDataClient, never()).getWeatherData(59.3296, 18.0690);
+    }
 }
@@ -14,6 +14,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -22,7 +23,7 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "weather.warmup.enabled=false")
 @AutoConfigureMockMvc(addFilters = false)
 @ContextConfiguration(initializers = TestcontainersConfiguration.Initializer.class)
 class WeatherServiceAppEndToEndTest {
@@ -79,7 +80,7 @@ class WeatherServiceAppEndToEndTest {
 
     @Test
     void testGetWeather_Success() throws Exception {
-        when(weatherDataClient.getWeatherData(anyDouble(), anyDouble())).thenReturn(weatherDataString);
+        when(weatherDataClient.getWeatherData(anyDouble(), anyDouble())).thenReturn(weatherDataString.getBytes(StandardCharsets.UTF_8));
 
         mockMvc.perform(get(URL)
                         .header("Authorization", token)
@@ -134,7 +135,7 @@ class WeatherServiceAppEndToEndTest {
 
     @Test
     void testGetWeatherData_CacheDistanceBoundary() throws Exception {
-        when(weatherDataClient.getWeatherData(anyDouble(), anyDouble())).thenReturn(weatherDataString);
+        when(weatherDataClient.getWeatherData(anyDouble(), anyDouble())).thenReturn(weatherDataString.getBytes(StandardCharsets.UTF_8));
 
         cacheManager.getCache("weatherData").put("weather:64.049075:-16.181418", weatherData);
 
@@ -152,7 +153,7 @@ class WeatherServiceAppEndToEndTest {
 
     @Test
     void testGetWeatherData_InvalidJson() throws Exception {
-        when(weatherDataClient.getWeatherData(anyDouble(), anyDouble())).thenReturn("invalid json");
+        when(weatherDataClient.getWeatherData(anyDouble(), anyDouble())).thenReturn("invalid json".getBytes(StandardCharsets.UTF_8));
 
         mockMvc.perform(get(URL)
                         .header("Authorization", token)
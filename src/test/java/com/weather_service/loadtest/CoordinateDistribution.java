@@ -0,0 +1,105 @@
+package com.weather_service.loadtest;
+
+import com.weather_service.model.Coordinates;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Where the simulated clients ask for weather. Each distribution trades cache hits for misses differently:
+ * <ul>
+ *     <li>{@code hotspot}: most requests land within a few hundred metres of a small set of city centres,
+ *     the rest anywhere, so nearly every request after warm-up is a hit</li>
+ *     <li>{@code uniform}: anywhere on land-like latitudes, so nearly every request is a miss</li>
+ *     <li>{@code vehicle}: each client drives along a road at motorway speed, so it hits while it stays within
+ *     the cache distance of its last miss and misses again once it has moved on</li>
+ * </ul>
+ */
+public enum CoordinateDistribution {
+
+    HOTSPOT {
+        @Override
+        Source source(long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            return () -> {
+                if (random.nextDouble() >= HOT_SHARE) {
+                    return UNIFORM.randomPoint(random);
+                }
+                // Zipf-like: the first centres get most of the traffic
+                int centre = (int) Math.min(CENTRES.length - 1, Math.floor(-Math.log(random.nextDouble()) * 3));
+                double[] point = CENTRES[centre];
+                return round(point[0] + random.nextDouble(-HOT_SPREAD_DEG, HOT_SPREAD_DEG),
+                        point[1] + random.nextDouble(-HOT_SPREAD_DEG, HOT_SPREAD_DEG));
+            };
+        }
+    },
+
+    UNIFORM {
+        @Override
+        Source source(long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            return () -> randomPoint(random);
+        }
+    },
+
+    VEHICLE {
+        @Override
+        Source source(long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Coordinates start = randomPoint(random);
+            return new Source() {
+                private double lat = start.getLat();
+                private double lon = start.getLon();
+                private double heading = random.nextDouble(0, 2 * Math.PI);
+
+                @Override
+                public Coordinates next() {
+                    // One request per step, the road bends a little each time
+                    heading += random.nextGaussian() * 0.05;
+                    lat = Math.clamp(lat + Math.cos(heading) * VEHICLE_STEP_DEG, -80, 80);
+                    lon = wrap(lon + Math.sin(heading) * VEHICLE_STEP_DEG / Math.max(0.2, Math.cos(Math.toRadians(lat))));
+                    return round(lat, lon);
+                }
+            };
+        }
+    };
+
+    // Share of hotspot requests that go to a centre
+    private static final double HOT_SHARE = 0.9;
+    // About 300 m around a centre
+    private static final double HOT_SPREAD_DEG = 0.003;
+    // About 200 m per request, so a client leaves a 1 km cache circle after a handful of requests
+    private static final double VEHICLE_STEP_DEG = 0.0018;
+
+    private static final double[][] CENTRES = {
+            {51.5074, -0.1278}, {48.8566, 2.3522}, {52.5200, 13.4050}, {40.4168, -3.7038}, {41.9028, 12.4964},
+            {59.3293, 18.0686}, {56.9496, 24.1052}, {64.1466, -21.9426}, {40.7128, -74.0060}, {35.6762, 139.6503},
+            {-33.8688, 151.2093}, {19.4326, -99.1332}
+    };
+
+    /**
+     * Coordinates for one simulated client. Not thread-safe, every client gets its own.
+     */
+    interface Source {
+        Coordinates next();
+    }
+
+    abstract Source source(long seed);
+
+    Coordinates randomPoint(SplittableRandom random) {
+        return round(random.nextDouble(-60, 70), random.nextDouble(-180, 180));
+    }
+
+    static CoordinateDistribution parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // Clients send coordinates with the precision a phone reports, not full doubles
+    private static Coordinates round(double lat, double lon) {
+        return new Coordinates(Math.round(lat * 1e5) / 1e5, Math.round(lon * 1e5) / 1e5);
+    }
+
+    private static double wrap(double lon) {
+        return lon > 180 ? lon - 360 : lon < -180 ? lon + 360 : lon;
+    }
+}
@@ -0,0 +1,77 @@
+package com.weather_service.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one load test run.
+ * <p>
+ * Written as a one-line JSON summary, so runs can be compared with a diff or collected into a table, next to
+ * the full HdrHistogram percentile distribution for plotting.
+ *
+ * @param latencyMicros latency per request in microseconds, measured from when the request was due to be sent
+ */
+record LoadReport(String distribution, int concurrency, int targetRate, Duration duration, long requests, long errors,
+                  long upstreamCalls, long upstreamErrors, Histogram latencyMicros) {
+
+    double throughput() {
+        return requests / (duration.toNanos() / 1e9);
+    }
+
+    /**
+     * Share of requests answered without an upstream call.
+     */
+    double hitRatio() {
+        return requests == 0 ? 0 : Math.max(0, 1 - (double) upstreamCalls / requests);
+    }
+
+    double percentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    String toJson() {
+        return String.format(Locale.ROOT, "{\"distribution\":\"%s\",\"concurrency\":%d,\"targetRate\":%d,"
+                        + "\"durationSeconds\":%.1f,\"requests\":%d,\"errors\":%d,\"upstreamCalls\":%d,\"upstreamErrors\":%d,"
+                        + "\"hitRatio\":%.4f,\"throughput\":%.1f,\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f}",
+                distribution, concurrency, targetRate, duration.toMillis() / 1000.0, requests, errors, upstreamCalls,
+                upstreamErrors, hitRatio(), throughput(), percentileMillis(50), percentileMillis(99),
+                percentileMillis(99.9), latencyMicros.getMaxValue() / 1000.0);
+    }
+
+    void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%n%s, %d clients%s, %.1f s%n", distribution, concurrency,
+                targetRate > 0 ? " at " + targetRate + " req/s" : "", duration.toMillis() / 1000.0);
+        out.printf(Locale.ROOT, "  requests %d (%d errors), %.1f req/s, hit ratio %.3f%n",
+                requests, errors, throughput(), hitRatio());
+        out.printf(Locale.ROOT, "  latency p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                percentileMillis(50), percentileMillis(99), percentileMillis(99.9), latencyMicros.getMaxValue() / 1000.0);
+        out.printf(Locale.ROOT, "  upstream calls %d (%d errors)%n", upstreamCalls, upstreamErrors);
+    }
+
+    /**
+     * Writes {@code <distribution>-<timestamp>.json} and the matching {@code .hgrm} percentile distribution.
+     *
+     * @return the JSON summary file
+     */
+    Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String name = distribution + "-" + Instant.now().toString().replace(':', '-');
+        Path summary = directory.resolve(name + ".json");
+        Files.writeString(summary, toJson() + System.lineSeparator());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")), false,
+                StandardCharsets.UTF_8)) {
+            // Scaled to milliseconds, the unit HdrHistogram's plotter expects
+            latencyMicros.outputPercentileDistribution(out, (double) TimeUnit.MILLISECONDS.toMicros(1));
+        }
+        return summary;
+    }
+}
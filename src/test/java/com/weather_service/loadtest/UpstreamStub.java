@@ -0,0 +1,110 @@
+package com.weather_service.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the OpenWeatherMap current weather endpoint.
+ * <p>
+ * Answers {@code GET /data/2.5/weather?lat=..&lon=..} with a response shaped like the real one for the requested
+ * point, after a latency drawn uniformly from {@code [latencyMs, latencyMs + jitterMs]}. A share of the calls,
+ * {@code errorRate}, fails with 503 instead. Every exchange runs on its own virtual thread, so the latency
+ * does not queue requests behind each other.
+ */
+public class UpstreamStub implements AutoCloseable {
+
+    public static final String PATH = "/data/2.5/weather";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public UpstreamStub(long latencyMs, long jitterMs, double errorRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (exchange) {
+            Thread.sleep(latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0));
+            if (random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            byte[] body = body(Double.parseDouble(query.get("lat")), Double.parseDouble(query.get("lon")), random);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            params.put(pair.substring(0, separator), pair.substring(separator + 1));
+        }
+        return params;
+    }
+
+    private static byte[] body(double lat, double lon, ThreadLocalRandom random) {
+        long now = System.currentTimeMillis() / 1000;
+        return String.format(Locale.ROOT, """
+                {"coord":{"lon":%.4f,"lat":%.4f},\
+                "weather":[{"id":803,"main":"Clouds","description":"broken clouds","icon":"04d"}],\
+                "base":"stations","main":{"temp":%.2f,"feels_like":%.2f,"pressure":1012,"humidity":%d},\
+                "visibility":10000,"wind":{"speed":%.2f,"deg":240},"clouds":{"all":%d},"dt":%d,\
+                "sys":{"type":2,"id":2075535,"country":"XX","sunrise":%d,"sunset":%d},\
+                "timezone":0,"id":1,"name":"Stub","cod":200}""",
+                lon, lat, random.nextDouble(-10, 30), random.nextDouble(-12, 30), random.nextInt(30, 100),
+                random.nextDouble(0, 15), random.nextInt(0, 101), now, now - 21_600, now + 21_600)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,218 @@
+package com.weather_service.loadtest;
+
+import com.weather_service.TestcontainersConfiguration;
+import com.weather_service.model.Coordinates;
+import com.weather_service.security.JwtUtil;
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Offline load test of the whole service: real HTTP against the running application, Redis from Testcontainers
+ * and {@link UpstreamStub} in place of OpenWeatherMap. Run with {@code ./gradlew loadTest}, settings are passed
+ * as system properties:
+ * <ul>
+ *     <li>{@code load.distribution}: hotspot, uniform or vehicle, see {@link CoordinateDistribution}</li>
+ *     <li>{@code load.concurrency}: simulated clients, each with one request in flight</li>
+ *     <li>{@code load.rate}: total requests per second, 0 sends as fast as responses come back</li>
+ *     <li>{@code load.warmup-seconds}, {@code load.duration-seconds}</li>
+ *     <li>{@code load.path}: /api/weather or /api/weather/reactive</li>
+ *     <li>{@code load.upstream.latency-ms}, {@code load.upstream.jitter-ms}, {@code load.upstream.error-rate}</li>
+ *     <li>{@code load.upstream.calls-per-minute}: upstream quota, 0 (the default) leaves upstream calls unthrottled</li>
+ *     <li>{@code load.seed}: the same seed replays the same coordinates</li>
+ * </ul>
+ * With a rate set, latency is measured from when each request was due, so a stalled server is not hidden by
+ * clients that stop sending while they wait. Reports land in {@code build/results/loadtest}.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.aws.parameterstore.enabled=false",
+        // Every run starts cold, warm-up is measured on its own terms
+        "weather.warmup.enabled=false",
+        "logging.level.com.weather_service=warn",
+        "logging.level.org.springframework.cache=warn"
+})
+@ContextConfiguration(initializers = TestcontainersConfiguration.Initializer.class)
+class WeatherLoadTest {
+
+    private static final Logger log = LogManager.getLogger(WeatherLoadTest.class);
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Path RESULTS = Path.of("build", "results", "loadtest");
+
+    private static final UpstreamStub UPSTREAM = startUpstream();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private static UpstreamStub startUpstream() {
+        try {
+            return new UpstreamStub(Long.getLong("load.upstream.latency-ms", 80),
+                    Long.getLong("load.upstream.jitter-ms", 40),
+                    Double.parseDouble(System.getProperty("load.upstream.error-rate", "0")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        registry.add("openweathermap.api.url", UPSTREAM::url);
+        registry.add("openweathermap.api.key", () -> "load-test");
+        int callsPerMinute = Integer.getInteger("load.upstream.calls-per-minute", 0);
+        registry.add("weather.upstream.quota.enabled", () -> callsPerMinute > 0);
+        registry.add("weather.upstream.quota.calls-per-minute", () -> Math.max(callsPerMinute, 1));
+        registry.add("security.admin-password", () -> "load-test");
+        registry.add("security.private-key", () -> pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        registry.add("security.public-key", () -> pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        registry.add("security.token-expiration", () -> TimeUnit.HOURS.toMillis(1));
+    }
+
+    private static String pem(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n" + Base64.getMimeEncoder().encodeToString(encoded) + "\n-----END " + type + "-----";
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        UPSTREAM.close();
+    }
+
+    @Test
+    void run() throws Exception {
+        CoordinateDistribution distribution = CoordinateDistribution.parse(System.getProperty("load.distribution", "hotspot"));
+        int concurrency = Integer.getInteger("load.concurrency", 64);
+        int rate = Integer.getInteger("load.rate", 0);
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration-seconds", 30));
+        long seed = Long.getLong("load.seed", 42);
+        String baseUrl = "http://localhost:" + port + System.getProperty("load.path", "/api/weather");
+        String authorization = "Bearer " + jwtUtil.generateToken("admin");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        // Requests per client are spaced evenly so that all clients together send at the target rate
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(concurrency) / rate : 0;
+
+        List<CoordinateDistribution.Source> sources = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            sources.add(distribution.source(seed + i));
+        }
+
+        log.warn("Warming up for {} s", warmup.toSeconds());
+        drive(client, baseUrl, authorization, sources, intervalNanos, warmup);
+
+        long upstreamCalls = UPSTREAM.calls();
+        long upstreamErrors = UPSTREAM.errors();
+        Run run = drive(client, baseUrl, authorization, sources, intervalNanos, duration);
+
+        LoadReport report = new LoadReport(distribution.name().toLowerCase(Locale.ROOT), concurrency, rate, run.elapsed(),
+                run.latencyMicros().getTotalCount(), run.errors(), UPSTREAM.calls() - upstreamCalls,
+                UPSTREAM.errors() - upstreamErrors, run.latencyMicros());
+        report.print(System.out);
+        System.out.println("  written to " + report.write(RESULTS).toAbsolutePath());
+
+        assertTrue(report.requests() > 0, "No request completed");
+    }
+
+    private record Run(Histogram latencyMicros, long errors, Duration elapsed) {
+    }
+
+    private Run drive(HttpClient client, String baseUrl, String authorization, List<CoordinateDistribution.Source> sources,
+                      long intervalNanos, Duration duration) throws Exception {
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        List<Future<Histogram>> clients = new ArrayList<>(sources.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sources.size(); i++) {
+                CoordinateDistribution.Source source = sources.get(i);
+                // Clients start spread over one interval rather than all at once
+                long offset = intervalNanos * i / sources.size();
+                clients.add(executor.submit(() ->
+                        simulateClient(client, baseUrl, authorization, source, start + offset, intervalNanos, end, errors)));
+            }
+        }
+
+        Histogram latencyMicros = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        for (Future<Histogram> future : clients) {
+            latencyMicros.add(future.get());
+        }
+        return new Run(latencyMicros, errors.get(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static Histogram simulateClient(HttpClient client, String baseUrl, String authorization,
+                                            CoordinateDistribution.Source source, long firstDueNanos,
+                                            long intervalNanos, long endNanos, AtomicLong errors) throws InterruptedException {
+        Histogram latencyMicros = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        long due = firstDueNanos;
+        while (due < endNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            long sent = intervalNanos > 0 ? due : System.nanoTime();
+
+            Coordinates point = source.next();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?lat=" + point.getLat() + "&lon=" + point.getLon()))
+                    .header("Authorization", authorization)
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            }
+
+            long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent);
+            latencyMicros.recordValue(Math.min(latency, HIGHEST_LATENCY_MICROS));
+            due = intervalNanos > 0 ? due + intervalNanos : System.nanoTime();
+        }
+        return latencyMicros;
+    }
+}
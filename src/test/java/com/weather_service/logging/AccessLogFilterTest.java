@@ -0,0 +1,61 @@
+package com.weather_service.logging;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AccessLogFilterTest {
+
+    private AccessLogFilter accessLogFilter;
+
+    @BeforeEach
+    void setUp() {
+        accessLogFilter = spy(new AccessLogFilter());
+        ReflectionTestUtils.setField(accessLogFilter, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(accessLogFilter, "slowMs", 1000L);
+    }
+
+    @Test
+    void shouldLog_NotSampled_OnlyServerErrorsAndSlowRequests() {
+        assertFalse(accessLogFilter.shouldLog(200, 5_000));
+        assertFalse(accessLogFilter.shouldLog(404, 5_000));
+        assertTrue(accessLogFilter.shouldLog(503, 5_000));
+        assertTrue(accessLogFilter.shouldLog(200, 1_000_000));
+    }
+
+    @Test
+    void shouldLog_FullSampleRate_LogsEveryRequest() {
+        ReflectionTestUtils.setField(accessLogFilter, "sampleRate", 1.0);
+
+        assertTrue(accessLogFilter.shouldLog(200, 5_000));
+    }
+
+    @Test
+    void doFilter_AsyncRequest_RecordedWhenResponseCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/weather/reactive");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        accessLogFilter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                req.startAsync();
+            }
+        });
+        verify(accessLogFilter, never()).record(any(), anyInt(), anyLong());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        verify(accessLogFilter, times(1)).record(same(request), eq(200), anyLong());
+    }
+}
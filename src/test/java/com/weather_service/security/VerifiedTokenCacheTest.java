@@ -0,0 +1,94 @@
+package com.weather_service.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private SecurityProperties securityProperties;
+    private JwtUtil jwtUtil;
+    private UserDetailsService userDetailsService;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        securityProperties = new SecurityProperties();
+        securityProperties.setPrivateKey(pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        securityProperties.setPublicKey(pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        securityProperties.setTokenExpiration(60_000);
+
+        jwtUtil = spy(new JwtUtil(securityProperties));
+        jwtUtil.init();
+        userDetailsService = spy(new InMemoryUserDetailsManager(
+                User.withUsername("admin").password("{noop}admin").roles("ADMIN").build()));
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, userDetailsService, securityProperties);
+        verifiedTokenCache.init();
+    }
+
+    private static String pem(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n" + Base64.getMimeEncoder().encodeToString(encoded) + "\n-----END " + type + "-----";
+    }
+
+    @Test
+    void authenticate_ReusedToken_VerifiedOnce() {
+        String token = jwtUtil.generateToken("admin");
+
+        UserDetails first = verifiedTokenCache.authenticate(token);
+        UserDetails second = verifiedTokenCache.authenticate(token);
+
+        assertEquals("admin", first.getUsername());
+        assertSame(first, second);
+        assertTrue(second.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+        verify(jwtUtil, times(1)).validateToken(token);
+        verify(userDetailsService, times(1)).loadUserByUsername("admin");
+    }
+
+    @Test
+    void authenticate_InvalidToken_ThrowsAndIsNotCached() {
+        String token = jwtUtil.generateToken("admin");
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+        assertThrows(Exception.class, () -> verifiedTokenCache.authenticate(tampered));
+        assertThrows(Exception.class, () -> verifiedTokenCache.authenticate(tampered));
+
+        verify(jwtUtil, times(2)).validateToken(tampered);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void authenticate_ExpiredToken_ThrowsCredentialsExpired() throws InterruptedException {
+        // Still within the parser's clock skew, so only the expiry check rejects it
+        securityProperties.setTokenExpiration(1);
+        String token = jwtUtil.generateToken("admin");
+        Thread.sleep(10);
+
+        assertThrows(CredentialsExpiredException.class, () -> verifiedTokenCache.authenticate(token));
+    }
+
+    @Test
+    void authenticate_CacheDisabled_VerifiesEveryTime() {
+        securityProperties.getTokenCache().setEnabled(false);
+        String token = jwtUtil.generateToken("admin");
+
+        verifiedTokenCache.authenticate(token);
+        verifiedTokenCache.authenticate(token);
+
+        verify(jwtUtil, times(2)).validateToken(token);
+    }
+}
@@ -0,0 +1,132 @@
+package com.weather_service.service;
+
+import com.weather_service.caching.CacheSnapshot;
+import com.weather_service.caching.WeatherDataRedisSerializer;
+import com.weather_service.handler.UpstreamException;
+import com.weather_service.model.Coordinates;
+import com.weather_service.model.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpTest {
+
+    private final RedisSerializer<Object> serializer = new WeatherDataRedisSerializer(RedisSerializer.json(), true);
+
+    @Mock
+    private WeatherService weatherService;
+
+    @Mock
+    private PopularityTracker popularityTracker;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @InjectMocks
+    private CacheWarmUp cacheWarmUp;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheWarmUp, "enabled", true);
+        ReflectionTestUtils.setField(cacheWarmUp, "seedFile", seeds(""));
+        ReflectionTestUtils.setField(cacheWarmUp, "seedCallsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(cacheWarmUp, "requiredCoverage", 0.6);
+        ReflectionTestUtils.setField(cacheWarmUp, "maxDurationMs", 60_000L);
+        ReflectionTestUtils.setField(cacheWarmUp, "snapshotPath", directory.resolve("snapshot"));
+        ReflectionTestUtils.setField(cacheWarmUp, "snapshotMaxEntries", 100);
+        lenient().doReturn(serializer).when(redisTemplate).getValueSerializer();
+    }
+
+    @Test
+    void warmUp_SeedsFetchedOrAlreadyCached_CountTowardsCoverage() {
+        ReflectionTestUtils.setField(cacheWarmUp, "seedFile", seeds("""
+                # comment
+                51.5074,-0.1278   # London
+                48.8566, 2.3522
+
+                52.5200,13.4050
+                """));
+        when(weatherService.prefetch(51.5074, -0.1278)).thenReturn(false);
+        when(weatherService.prefetch(48.8566, 2.3522)).thenReturn(true);
+        when(weatherService.prefetch(52.5200, 13.4050)).thenThrow(
+                new UpstreamException(UpstreamException.Reason.THROTTLED, "quota", null));
+        assertFalse(cacheWarmUp.isWarm());
+
+        cacheWarmUp.warmUp();
+
+        assertEquals(2.0 / 3, cacheWarmUp.coverage(), 1e-9);
+        assertTrue(cacheWarmUp.isWarm());
+    }
+
+    @Test
+    void readSeeds_MalformedLines_SkippedWithoutDroppingTheRest() throws IOException {
+        ReflectionTestUtils.setField(cacheWarmUp, "seedFile", seeds("""
+                51.5074,-0.1278
+                london,-0.1278
+                48.8566
+                52.5200,13.4050
+                """));
+
+        assertEquals(List.of(new Coordinates(51.5074, -0.1278), new Coordinates(52.5200, 13.4050)), cacheWarmUp.readSeeds());
+    }
+
+    @Test
+    void isWarm_BelowCoverage_OnlyOnceMaxDurationPassed() {
+        ReflectionTestUtils.setField(cacheWarmUp, "seedFile", seeds("1,1\n2,2\n"));
+        when(weatherService.prefetch(anyDouble(), anyDouble())).thenThrow(
+                new UpstreamException(UpstreamException.Reason.UNAVAILABLE, "open", null));
+        ReflectionTestUtils.setField(cacheWarmUp, "startedAtMillis", System.currentTimeMillis());
+
+        cacheWarmUp.warmUp();
+
+        assertFalse(cacheWarmUp.isWarm());
+        ReflectionTestUtils.setField(cacheWarmUp, "startedAtMillis", System.currentTimeMillis() - 60_000L);
+        assertTrue(cacheWarmUp.isWarm());
+    }
+
+    @Test
+    void warmUp_Snapshot_RestoresEntries() throws IOException {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setTemperature(14.7);
+        CacheSnapshot.Entry entry = new CacheSnapshot.Entry(51.5, -0.12, System.currentTimeMillis() + 60_000, weatherData);
+        CacheSnapshot.write(directory.resolve("snapshot"), List.of(entry), serializer);
+        when(weatherService.restore(entry)).thenReturn(true);
+
+        cacheWarmUp.warmUp();
+
+        assertEquals(1, cacheWarmUp.restored());
+        // No seeds configured, the snapshot alone makes the instance warm
+        assertTrue(cacheWarmUp.isWarm());
+    }
+
+    @Test
+    void writeSnapshot_BeforeWarmUpFinished_KeepsPreviousSnapshot() {
+        cacheWarmUp.writeSnapshot();
+
+        verifyNoInteractions(popularityTracker);
+    }
+
+    private static ByteArrayResource seeds(String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
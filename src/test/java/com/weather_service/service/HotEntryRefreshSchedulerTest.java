@@ -0,0 +1,99 @@
+package com.weather_service.service;
+
+import com.weather_service.caching.CachedWeather;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotEntryRefreshSchedulerTest {
+
+    @Spy
+    private PopularityTracker popularityTracker = new PopularityTracker();
+
+    @Mock
+    private WeatherService weatherService;
+
+    @InjectMocks
+    private HotEntryRefreshScheduler hotEntryRefreshScheduler;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(popularityTracker, "maxTracked", 100);
+        ReflectionTestUtils.setField(hotEntryRefreshScheduler, "topN", 10);
+        ReflectionTestUtils.setField(hotEntryRefreshScheduler, "minHits", 2L);
+        ReflectionTestUtils.setField(hotEntryRefreshScheduler, "leadTimeMs", 30_000L);
+        ReflectionTestUtils.setField(hotEntryRefreshScheduler, "budgetPerMinute", 1);
+    }
+
+    @Test
+    void refreshHotEntries_OnlyHotEntriesAboutToGoStale_AreRefreshed() {
+        CachedWeather dueSoon = hit("weather:1.0:1.0", 3, Duration.ofSeconds(10));
+        CachedWeather stillFresh = hit("weather:2.0:2.0", 3, Duration.ofMinutes(2));
+        CachedWeather cold = hit("weather:3.0:3.0", 1, Duration.ofSeconds(10));
+        when(weatherService.refreshInBackground(dueSoon)).thenReturn(true);
+
+        hotEntryRefreshScheduler.refreshHotEntries(System.currentTimeMillis());
+
+        verify(weatherService, times(1)).refreshInBackground(dueSoon);
+        verify(weatherService, never()).refreshInBackground(stillFresh);
+        verify(weatherService, never()).refreshInBackground(cold);
+        assertTrue(hotEntryRefreshScheduler.backlog().isEmpty());
+    }
+
+    @Test
+    void refreshHotEntries_OverBudget_KeepsHottestFirstAndBacklogsRest() {
+        CachedWeather hottest = hit("weather:1.0:1.0", 8, Duration.ofSeconds(10));
+        CachedWeather hot = hit("weather:2.0:2.0", 4, Duration.ofSeconds(10));
+        // The second time the hottest entry is still being refreshed, which costs no budget
+        when(weatherService.refreshInBackground(hottest)).thenReturn(true, false);
+
+        long now = System.currentTimeMillis();
+        hotEntryRefreshScheduler.refreshHotEntries(now);
+
+        verify(weatherService, never()).refreshInBackground(hot);
+        assertEquals(1, hotEntryRefreshScheduler.backlog().size());
+        assertSame(hot, hotEntryRefreshScheduler.backlog().get(0).cachedWeather());
+        assertEquals(0, hotEntryRefreshScheduler.remainingBudget());
+
+        // The budget and the counts reset once the minute is over
+        when(weatherService.refreshInBackground(hot)).thenReturn(true);
+        hotEntryRefreshScheduler.refreshHotEntries(now + 60_000);
+
+        verify(weatherService, times(1)).refreshInBackground(hot);
+        verify(popularityTracker, times(1)).decay();
+        assertTrue(hotEntryRefreshScheduler.backlog().isEmpty());
+    }
+
+    @Test
+    void decay_ForgetsEntriesWithoutHits() {
+        hit("weather:1.0:1.0", 4, Duration.ofSeconds(10));
+
+        popularityTracker.decay();
+        assertEquals(2, popularityTracker.hottest(10, 0).get(0).hits());
+
+        popularityTracker.decay();
+        popularityTracker.decay();
+        popularityTracker.decay();
+        assertEquals(0, popularityTracker.size());
+    }
+
+    private CachedWeather hit(String key, int hits, Duration freshFor) {
+        CachedWeather cachedWeather = new CachedWeather(key, null, 1.0, 1.0, 0.0, System.currentTimeMillis() + 60_000);
+        for (int i = 0; i < hits; i++) {
+            popularityTracker.recordHit(cachedWeather);
+        }
+        lenient().when(weatherService.freshFor(cachedWeather)).thenReturn(freshFor);
+        return cachedWeather;
+    }
+}
@@ -0,0 +1,173 @@
+package com.weather_service.service;
+
+import com.weather_service.handler.BadRequestException;
+import com.weather_service.model.WeatherData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightRequestRegistryTest {
+
+    private InFlightRequestRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InFlightRequestRegistry();
+        ReflectionTestUtils.setField(registry, "cacheDistance", 1.0);
+        ReflectionTestUtils.setField(registry, "waitTimeoutMs", 5000L);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fetch_NearbyMissesShareLeaderResult() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        AtomicInteger cacheWrites = new AtomicInteger();
+        WeatherData leaderData = weatherData(25.0);
+
+        Future<WeatherData> leader = executor.submit(() -> registry.fetch(40.0, 50.0, () -> {
+            upstreamCalls.incrementAndGet();
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return leaderData;
+        }, data -> cacheWrites.incrementAndGet()));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        // ~150m away, within the 1km cache distance
+        Future<WeatherData> follower = executor.submit(() -> registry.fetch(40.001, 50.001, () -> {
+            upstreamCalls.incrementAndGet();
+            return weatherData(0.0);
+        }, data -> cacheWrites.incrementAndGet()));
+        waitForFollowerToQueue();
+
+        releaseLeader.countDown();
+
+        assertSame(leaderData, leader.get(5, TimeUnit.SECONDS));
+        assertSame(leaderData, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, cacheWrites.get());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void fetch_DistantMissRunsOwnFetch() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        Future<WeatherData> leader = executor.submit(() -> registry.fetch(40.0, 50.0, () -> {
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return weatherData(25.0);
+        }, data -> { }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        // ~11km away
+        WeatherData distant = registry.fetch(40.1, 50.0, () -> weatherData(10.0), data -> { });
+        releaseLeader.countDown();
+
+        assertEquals(10.0, distant.getTemperature());
+        assertEquals(25.0, leader.get(5, TimeUnit.SECONDS).getTemperature());
+    }
+
+    @Test
+    void fetch_LeaderFailure_PropagatesToFollowers() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        Future<WeatherData> leader = executor.submit(() -> registry.fetch(40.0, 50.0, () -> {
+            leaderStarted.countDown();
+            await(releaseLeader);
+            throw new BadRequestException("No weather data found.");
+        }, data -> { }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        Future<WeatherData> follower = executor.submit(() ->
+                registry.fetch(40.0, 50.0, () -> weatherData(0.0), data -> { }));
+        waitForFollowerToQueue();
+        releaseLeader.countDown();
+
+        Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BadRequestException.class, leaderError.getCause());
+        assertInstanceOf(BadRequestException.class, followerError.getCause());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void fetch_FollowerTimesOut_CachesOwnResult() throws Exception {
+        ReflectionTestUtils.setField(registry, "waitTimeoutMs", 100L);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        AtomicInteger cacheWrites = new AtomicInteger();
+
+        Future<WeatherData> leader = executor.submit(() -> registry.fetch(40.0, 50.0, () -> {
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return weatherData(25.0);
+        }, data -> cacheWrites.incrementAndGet()));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        WeatherData own = registry.fetch(40.0, 50.0, () -> weatherData(20.0), data -> cacheWrites.incrementAndGet());
+        releaseLeader.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+
+        assertEquals(20.0, own.getTemperature());
+        assertEquals(2, cacheWrites.get());
+    }
+
+    @Test
+    void fetch_CacheWriteFails_StillReturnsFetchedData() {
+        WeatherData weatherData = registry.fetch(40.0, 50.0, () -> weatherData(25.0), data -> {
+            throw new IllegalStateException("Redis down");
+        });
+
+        assertEquals(25.0, weatherData.getTemperature());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void fetchReactive_CacheWriteFails_StillReturnsFetchedData() {
+        WeatherData weatherData = registry.fetchReactive(40.0, 50.0, () -> Mono.just(weatherData(25.0)),
+                data -> Mono.error(new IllegalStateException("Redis down"))).block();
+
+        assertNotNull(weatherData);
+        assertEquals(25.0, weatherData.getTemperature());
+    }
+
+    private static void waitForFollowerToQueue() throws InterruptedException {
+        // The follower has no observable state before blocking on the leader, give it time to get there
+        Thread.sleep(200);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static WeatherData weatherData(double temperature) {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setTemperature(temperature);
+        return weatherData;
+    }
+}
@@ -0,0 +1,154 @@
+package com.weather_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_service.model.WeatherData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the streaming parser against the tree-based parser it replaced, on recorded OpenWeatherMap
+ * responses in {@code src/test/resources/openweathermap} and on malformed or unusual payloads.
+ */
+class WeatherDataParserTest {
+
+    private static final Logger log = LogManager.getLogger(WeatherDataParserTest.class);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "riga_clear.json",
+            "london_rain.json",
+            "reykjavik_snow.json",
+            "tokyo_localized.json",
+            "tromso_polar_night.json",
+            "sparse_station.json",
+            "coerced_values.json",
+            "duplicate_fields.json"
+    })
+    void parse_RecordedPayload_MatchesTreeParser(String fileName) throws IOException {
+        byte[] body = corpus(fileName);
+
+        assertEquals(parseAsTree(body), WeatherDataParser.parse(body));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "[]",
+            "{}",
+            "\"clear sky\"",
+            "{\"coord\":{\"lat\":1}} trailing",
+            "{\"weather\":\"clear sky\"}",
+            "{\"weather\":{\"a\":{\"id\":1,\"description\":\"x\"},\"b\":5}}",
+            "{\"main\":{\"humidity\":99999999999}}",
+            "{\"weather\":[{\"description\":1.0e10},{\"description\":-0}]}"
+    })
+    void parse_UnusualPayload_MatchesTreeParser(String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(parseAsTree(body), WeatherDataParser.parse(body));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"invalid_json\"}", "[1, 2, }", "{\"coord\":{\"lat\":", "invalid json"})
+    void parse_InvalidJson_ThrowsLikeTreeParser(String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(JsonProcessingException.class, () -> parseAsTree(body));
+        assertThrows(JsonProcessingException.class, () -> WeatherDataParser.parse(body));
+    }
+
+    @Test
+    void parse_AllocatesLessThanTreeParser() throws IOException {
+        byte[] body = corpus("london_rain.json");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Warm up both, then compare allocation per parse on this thread
+        for (int i = 0; i < 2_000; i++) {
+            parseAsTree(body);
+            WeatherDataParser.parse(body);
+        }
+        long start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 2_000; i++) {
+            parseAsTree(body);
+        }
+        long treeBytes = (threads.getCurrentThreadAllocatedBytes() - start) / 2_000;
+        start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 2_000; i++) {
+            WeatherDataParser.parse(body);
+        }
+        long streamingBytes = (threads.getCurrentThreadAllocatedBytes() - start) / 2_000;
+
+        log.info("Allocated per parse: tree {} bytes, streaming {} bytes", treeBytes, streamingBytes);
+        assertTrue(streamingBytes * 2 < treeBytes);
+    }
+
+    private static byte[] corpus(String fileName) throws IOException {
+        try (InputStream in = WeatherDataParserTest.class.getResourceAsStream("/openweathermap/" + fileName)) {
+            return Objects.requireNonNull(in, fileName).readAllBytes();
+        }
+    }
+
+    /**
+     * The parser {@code WeatherService} used before, kept as the reference output.
+     */
+    private static WeatherData parseAsTree(byte[] body) throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode rootNode = objectMapper.readTree(new String(body, StandardCharsets.UTF_8));
+
+        WeatherData weatherData = new WeatherData();
+
+        JsonNode coordNode = rootNode.path("coord");
+        weatherData.setLatitude(coordNode.path("lat").asDouble());
+        weatherData.setLongitude(coordNode.path("lon").asDouble());
+
+        List<Integer> weatherIds = new ArrayList<>();
+        List<String> weatherDescriptions = new ArrayList<>();
+        JsonNode weatherNode = rootNode.path("weather");
+        for (JsonNode weather : weatherNode) {
+            weatherIds.add(weather.path("id").asInt());
+            weatherDescriptions.add(weather.path("description").asText());
+        }
+        weatherData.setWeatherIds(weatherIds);
+        weatherData.setWeatherDescriptions(weatherDescriptions);
+
+        JsonNode mainNode = rootNode.path("main");
+        weatherData.setTemperature(mainNode.path("temp").asDouble());
+        weatherData.setHumidity(mainNode.path("humidity").asInt());
+
+        JsonNode windNode = rootNode.path("wind");
+        weatherData.setWindSpeed(windNode.path("speed").asDouble());
+
+        JsonNode cloudsNode = rootNode.path("clouds");
+        weatherData.setCloudiness(cloudsNode.path("all").asInt());
+
+        JsonNode sysNode = rootNode.path("sys");
+        weatherData.setSunrise(toLocalDateTime(sysNode.path("sunrise").asLong()));
+        weatherData.setSunset(toLocalDateTime(sysNode.path("sunset").asLong()));
+
+        return weatherData;
+    }
+
+    private static LocalDateTime toLocalDateTime(long timestamp) {
+        return Instant.ofEpochSecond(timestamp)
+                .atZone(ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+}
@@ -1,25 +1,38 @@
 package com.weather_service.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.weather_service.caching.CacheSnapshot;
+import com.weather_service.caching.CachedWeather;
+import com.weather_service.caching.WeatherCacheStrategy;
+import com.weather_service.caching.WeatherNearCache;
+import com.weather_service.client.UpstreamScheduler;
 import com.weather_service.client.WeatherDataClient;
 import com.weather_service.handler.BadRequestException;
+import com.weather_service.handler.UpstreamException;
+import com.weather_service.metrics.WeatherMetrics;
+import com.weather_service.model.BatchWeatherResult;
+import com.weather_service.model.Coordinates;
 import com.weather_service.model.WeatherData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.geo.*;
-import org.springframework.data.redis.connection.RedisGeoCommands;
-import org.springframework.data.redis.core.GeoOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +42,10 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class WeatherServiceTest {
 
+    // sys.sunrise and sys.sunset of the upstream responses below, which the parser converts in the JVM's zone
+    private static final Instant SUNRISE = Instant.ofEpochSecond(1605782400);
+    private static final Instant SUNSET = Instant.ofEpochSecond(1605812400);
+
     @Mock
     private WeatherDataClient weatherDataClient;
 
@@ -36,10 +53,31 @@ class WeatherServiceTest {
     private RedisTemplate<String, Object> redisTemplate;
 
     @Mock
-    private GeoOperations<String, Object> geoOperations;
+    private ValueOperations<String, Object> valueOperations;
 
     @Mock
-    private ValueOperations<String, Object> valueOperations;
+    private WeatherNearCache weatherNearCache;
+
+    @Spy
+    private InFlightRequestRegistry inFlightRequestRegistry = new InFlightRequestRegistry();
+
+    @Mock
+    private WeatherCacheStrategy weatherCacheStrategy;
+
+    @Mock
+    private BackgroundRefresher backgroundRefresher;
+
+    @Mock
+    private PopularityTracker popularityTracker;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private WeatherMetrics weatherMetrics = new WeatherMetrics(meterRegistry);
+
+    // Not initialised, so quota is off and calls go straight through
+    @Spy
+    private UpstreamScheduler upstreamScheduler = new UpstreamScheduler();
 
     @InjectMocks
     private WeatherService weatherService;
@@ -49,7 +87,11 @@ class WeatherServiceTest {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(weatherService, "ttlMinutes", 1);
-        ReflectionTestUtils.setField(weatherService, "cacheDistance", 1.0);
+        ReflectionTestUtils.setField(weatherService, "hardTtlMinutes", 3);
+        ReflectionTestUtils.setField(weatherService, "batchMaxSize", 3);
+        ReflectionTestUtils.setField(weatherService, "batchParallelism", 2);
+        ReflectionTestUtils.setField(inFlightRequestRegistry, "cacheDistance", 1.0);
+        ReflectionTestUtils.setField(inFlightRequestRegistry, "waitTimeoutMs", 1000L);
 
         weatherData = new WeatherData();
         weatherData.setLatitude(40.0);
@@ -60,30 +102,86 @@ class WeatherServiceTest {
         weatherData.setHumidity(80);
         weatherData.setWindSpeed(4.1);
         weatherData.setCloudiness(90);
-        weatherData.setSunrise(LocalDateTime.of(2020, 11, 19, 12, 40));
-        weatherData.setSunset(LocalDateTime.of(2020, 11, 19, 21, 0));
+        weatherData.setSunrise(LocalDateTime.ofInstant(SUNRISE, ZoneId.systemDefault()));
+        weatherData.setSunset(LocalDateTime.ofInstant(SUNSET, ZoneId.systemDefault()));
     }
 
     @Test
     void getWeatherData_CachedData_ReturnsCachedWeatherData() {
-        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
-        when(geoOperations.radius(anyString(), any(Circle.class))).thenReturn(
-                new GeoResults<>(Collections.singletonList(new GeoResult<>(
-                        new RedisGeoCommands.GeoLocation<>("weather:40.0:50.0", new Point(50.0, 40.0)),
-                        new Distance(0.5)
-                )))
-        );
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("weather:40.0:50.0")).thenReturn(weatherData);
+        CachedWeather cached = new CachedWeather("weather:40.0:50.0", weatherData, 40.0, 50.0, 0.5,
+                System.currentTimeMillis() + 150_000);
+        when(weatherCacheStrategy.find(40.0, 50.0)).thenReturn(cached);
 
         WeatherData result = weatherService.getWeatherData(40.0, 50.0);
 
         assertNotNull(result);
         assertEquals(25.5, result.getTemperature());
-        verify(redisTemplate, times(1)).opsForGeo();
-        verify(redisTemplate, times(1)).opsForValue();
-        verify(geoOperations, times(1)).radius(anyString(), any(Circle.class));
-        verify(valueOperations, times(1)).get(anyString());
+        verify(weatherCacheStrategy, times(1)).find(40.0, 50.0);
+        verify(weatherNearCache, times(1)).put(eq(40.0), eq(50.0), same(cached),
+                argThat(freshFor -> freshFor.toSeconds() > 25 && freshFor.toSeconds() <= 30));
+        verify(popularityTracker, times(1)).recordHit(cached);
+        verifyNoInteractions(redisTemplate, weatherDataClient, backgroundRefresher);
+    }
+
+    @Test
+    void getWeatherData_StaleCachedData_ReturnsItAndRefreshesInBackground() {
+        when(weatherCacheStrategy.find(40.0, 50.0)).thenReturn(
+                new CachedWeather("weather:40.0:50.0", weatherData, 40.0, 50.0, 0.5,
+                        System.currentTimeMillis() + 60_000));
+
+        WeatherData result = weatherService.getWeatherData(40.0, 50.0);
+
+        assertEquals(weatherData, result);
+        verify(backgroundRefresher, times(1)).refresh(eq("weather:40.0:50.0"), any(Runnable.class));
+        verifyNoInteractions(weatherDataClient);
+    }
+
+    @Test
+    void getWeatherData_StaleCachedData_RefreshStoresUnderSameKey() {
+        String jsonString = "{\"coord\":{\"lon\":50.0,\"lat\":40.0},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"main\":{\"temp\":25.5,\"humidity\":80},\"wind\":{\"speed\":4.1},\"clouds\":{\"all\":90},\"sys\":{\"sunrise\":1605782400,\"sunset\":1605812400}}";
+        when(weatherCacheStrategy.find(40.001, 50.001)).thenReturn(
+                new CachedWeather("weather:40.0:50.0", weatherData, 40.0, 50.0, 0.1,
+                        System.currentTimeMillis() + 60_000));
+        when(backgroundRefresher.refresh(eq("weather:40.0:50.0"), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.getArgument(1, Runnable.class).run();
+            return true;
+        });
+        when(weatherDataClient.getWeatherData(40.0, 50.0)).thenReturn(jsonString.getBytes(StandardCharsets.UTF_8));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        weatherService.getWeatherData(40.001, 50.001);
+
+        verify(valueOperations, times(1)).set("weather:40.0:50.0", weatherData, Duration.ofMinutes(3));
+        verify(weatherCacheStrategy, times(1)).index(40.0, 50.0, "weather:40.0:50.0", Duration.ofMinutes(3));
+        verify(weatherCacheStrategy, never()).key(anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getWeatherData_SampledHit_FetchesRequestedPointInBackground() {
+        CachedWeather cached = new CachedWeather("weather:40.0:50.0", weatherData, 40.0, 50.0, 0.8,
+                System.currentTimeMillis() + 150_000);
+        when(weatherCacheStrategy.find(40.005, 50.005)).thenReturn(cached);
+        when(weatherCacheStrategy.shouldSample(cached)).thenReturn(true);
+        when(weatherCacheStrategy.key(40.005, 50.005)).thenReturn("weather:40.005:50.005");
+
+        WeatherData result = weatherService.getWeatherData(40.005, 50.005);
+
+        assertSame(weatherData, result);
+        verify(backgroundRefresher, times(1)).refresh(eq("weather:40.005:50.005"), any(Runnable.class));
+        verifyNoInteractions(weatherDataClient);
+    }
+
+    @Test
+    void getWeatherData_NearCacheHit_SkipsRedis() {
+        CachedWeather cached = new CachedWeather("weather:40.0:50.0", weatherData, 40.0, 50.0, 0.0,
+                System.currentTimeMillis() + 150_000);
+        when(weatherNearCache.get(40.0, 50.0)).thenReturn(cached);
+
+        WeatherData result = weatherService.getWeatherData(40.0, 50.0);
+
+        assertEquals(weatherData, result);
+        verify(popularityTracker, times(1)).recordHit(cached);
+        verifyNoInteractions(redisTemplate, weatherCacheStrategy, weatherDataClient);
     }
 
     @Test
@@ -92,26 +190,198 @@ class WeatherServiceTest {
         double lon = 50.0;
         String jsonString = "{\"coord\":{\"lon\":50.0,\"lat\":40.0},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"main\":{\"temp\":25.5,\"humidity\":80},\"wind\":{\"speed\":4.1},\"clouds\":{\"all\":90},\"sys\":{\"sunrise\":1605782400,\"sunset\":1605812400}}";
 
-        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
-        when(geoOperations.radius(anyString(), any(Circle.class))).thenReturn(null);
+        when(weatherCacheStrategy.find(lat, lon)).thenReturn(null);
+        when(weatherCacheStrategy.key(lat, lon)).thenReturn("weather:40.0:50.0");
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(weatherDataClient.getWeatherData(lat, lon)).thenReturn(jsonString);
+        when(weatherDataClient.getWeatherData(lat, lon)).thenReturn(jsonString.getBytes(StandardCharsets.UTF_8));
 
         WeatherData result = weatherService.getWeatherData(lat, lon);
 
         assertNotNull(result);
         assertEquals(weatherData, result);
-        verify(redisTemplate, times(2)).opsForGeo();
+        verify(weatherCacheStrategy, times(1)).find(lat, lon);
+        verify(weatherCacheStrategy, times(1)).index(lat, lon, "weather:40.0:50.0", Duration.ofMinutes(3));
         verify(weatherDataClient, times(1)).getWeatherData(lat, lon);
     }
 
+    @Test
+    void getWeatherData_UpstreamFails_ServesClosestFallbackEntry() {
+        ReflectionTestUtils.setField(weatherService, "fallbackDistanceKm", 25.0);
+        when(weatherCacheStrategy.find(40.0, 50.0)).thenReturn(null);
+        when(weatherDataClient.getWeatherData(40.0, 50.0)).thenThrow(
+                new UpstreamException(UpstreamException.Reason.TIMEOUT, "deadline", null));
+        when(weatherCacheStrategy.findFallback(40.0, 50.0, 25.0)).thenReturn(
+                new CachedWeather("weather:40.1:50.1", weatherData, 40.1, 50.1, 13.9, System.currentTimeMillis() + 10_000));
+
+        WeatherData result = weatherService.getWeatherData(40.0, 50.0);
+
+        assertEquals(weatherData, result);
+        verify(weatherNearCache, never()).put(anyDouble(), anyDouble(), any(), any());
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void getWeatherEntry_CachedData_FreshForRemainingSoftTtl() {
+        when(weatherCacheStrategy.find(40.0, 50.0)).thenReturn(new CachedWeather("weather:40.0:50.0", weatherData,
+                40.0, 50.0, 0.5, System.currentTimeMillis() + 150_000));
+
+        WeatherEntry entry = weatherService.getWeatherEntry(40.0, 50.0);
+
+        assertEquals("weather:40.0:50.0", entry.key());
+        assertSame(weatherData, entry.weatherData());
+        assertTrue(entry.maxAge().toSeconds() > 25 && entry.maxAge().toSeconds() <= 30);
+    }
+
+    @Test
+    void getWeatherEntry_UpstreamFails_FallbackNotFresh() {
+        when(weatherCacheStrategy.find(40.0, 50.0)).thenReturn(null);
+        when(weatherDataClient.getWeatherData(40.0, 50.0)).thenThrow(
+                new UpstreamException(UpstreamException.Reason.TIMEOUT, "deadline", null));
+        when(weatherCacheStrategy.findFallback(eq(40.0), eq(50.0), anyDouble())).thenReturn(
+                new CachedWeather("weather:40.1:50.1", weatherData, 40.1, 50.1, 13.9, System.currentTimeMillis() + 600_000));
+
+        WeatherEntry entry = weatherService.getWeatherEntry(40.0, 50.0);
+
+        assertEquals("weather:40.1:50.1", entry.key());
+        assertEquals(Duration.ZERO, entry.maxAge());
+    }
+
+    @Test
+    void getWeatherData_UpstreamFailsWithoutFallback_ThrowsUpstreamException() {
+        when(weatherCacheStrategy.find(40.0, 50.0)).thenReturn(null);
+        when(weatherDataClient.getWeatherData(40.0, 50.0)).thenThrow(
+                new UpstreamException(UpstreamException.Reason.SERVER_ERROR, "status 500", null));
+
+        UpstreamException exception = assertThrows(UpstreamException.class, () -> weatherService.getWeatherData(40.0, 50.0));
+
+        assertEquals(UpstreamException.Reason.SERVER_ERROR, exception.getReason());
+        verify(weatherCacheStrategy, times(1)).findFallback(eq(40.0), eq(50.0), anyDouble());
+    }
+
+    @Test
+    void getWeatherDataReactive_CircuitOpen_ServesClosestFallbackEntry() {
+        when(weatherCacheStrategy.findReactive(40.0, 50.0)).thenReturn(Mono.empty());
+        when(weatherDataClient.getWeatherDataReactive(40.0, 50.0)).thenReturn(Mono.error(
+                new UpstreamException(UpstreamException.Reason.UNAVAILABLE, "circuit open", null)));
+        when(weatherCacheStrategy.findFallback(eq(40.0), eq(50.0), anyDouble())).thenReturn(
+                new CachedWeather("weather:40.1:50.1", weatherData, 40.1, 50.1, 13.9, System.currentTimeMillis() + 10_000));
+
+        StepVerifier.create(weatherService.getWeatherDataReactive(40.0, 50.0))
+                .expectNext(weatherData)
+                .verifyComplete();
+    }
+
+    @Test
+    void getWeatherDataReactive_CachedData_ReturnsItWithoutUpstreamCall() {
+        CachedWeather cached = new CachedWeather("weather:40.0:50.0", weatherData, 40.0, 50.0, 0.5,
+                System.currentTimeMillis() + 150_000);
+        when(weatherCacheStrategy.findReactive(40.0, 50.0)).thenReturn(Mono.just(cached));
+
+        StepVerifier.create(weatherService.getWeatherDataReactive(40.0, 50.0))
+                .expectNext(weatherData)
+                .verifyComplete();
+
+        verify(popularityTracker, times(1)).recordHit(cached);
+        verifyNoInteractions(weatherDataClient, redisTemplate, backgroundRefresher);
+    }
+
+    @Test
+    void getWeatherDataReactive_NoCachedData_FetchesAndCaches() {
+        String jsonString = "{\"coord\":{\"lon\":50.0,\"lat\":40.0},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"main\":{\"temp\":25.5,\"humidity\":80},\"wind\":{\"speed\":4.1},\"clouds\":{\"all\":90},\"sys\":{\"sunrise\":1605782400,\"sunset\":1605812400}}";
+        when(weatherCacheStrategy.findReactive(40.0, 50.0)).thenReturn(Mono.empty());
+        when(weatherCacheStrategy.key(40.0, 50.0)).thenReturn("weather:40.0:50.0");
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(weatherDataClient.getWeatherDataReactive(40.0, 50.0)).thenReturn(Mono.just(jsonString.getBytes(StandardCharsets.UTF_8)));
+
+        StepVerifier.create(weatherService.getWeatherDataReactive(40.0, 50.0))
+                .expectNext(weatherData)
+                .verifyComplete();
+
+        verify(valueOperations, times(1)).set("weather:40.0:50.0", weatherData, Duration.ofMinutes(3));
+        verify(weatherDataClient, never()).getWeatherData(anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getWeatherDataReactive_UpstreamEmpty_ErrorsWithBadRequest() {
+        when(weatherCacheStrategy.findReactive(51.51, -0.13)).thenReturn(Mono.empty());
+        when(weatherDataClient.getWeatherDataReactive(51.51, -0.13)).thenReturn(Mono.empty());
+
+        StepVerifier.create(weatherService.getWeatherDataReactive(51.51, -0.13))
+                .expectErrorMessage("No weather data found.")
+                .verify();
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void getWeatherDataBatch_ResolvesCacheInOneLookupAndFetchesMisses() {
+        String jsonString = "{\"coord\":{\"lon\":50.0,\"lat\":40.0},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"main\":{\"temp\":25.5,\"humidity\":80},\"wind\":{\"speed\":4.1},\"clouds\":{\"all\":90},\"sys\":{\"sunrise\":1605782400,\"sunset\":1605812400}}";
+        Coordinates nearCachedPoint = new Coordinates(10.0, 10.0);
+        Coordinates cachedPoint = new Coordinates(20.0, 20.0);
+        Coordinates missedPoint = new Coordinates(40.0, 50.0);
+        CachedWeather cached = new CachedWeather("weather:20.0:20.0", weatherData, 20.0, 20.0, 0.0,
+                System.currentTimeMillis() + 150_000);
+        when(weatherNearCache.get(10.0, 10.0)).thenReturn(
+                new CachedWeather("weather:10.0:10.0", weatherData, 10.0, 10.0, 0.0, System.currentTimeMillis() + 150_000));
+        when(weatherCacheStrategy.findAll(List.of(cachedPoint, missedPoint))).thenReturn(Arrays.asList(cached, null));
+        when(weatherCacheStrategy.key(40.0, 50.0)).thenReturn("weather:40.0:50.0");
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(weatherDataClient.getWeatherData(40.0, 50.0)).thenReturn(jsonString.getBytes(StandardCharsets.UTF_8));
+
+        List<BatchWeatherResult> results = weatherService.getWeatherData(List.of(nearCachedPoint, cachedPoint, missedPoint));
+
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(result -> weatherData.equals(result.getWeatherData()) && result.getError() == null));
+        assertEquals(20.0, results.get(1).getLat());
+        verify(weatherCacheStrategy, times(1)).findAll(anyList());
+        verify(weatherCacheStrategy, never()).find(anyDouble(), anyDouble());
+        verify(weatherDataClient, times(1)).getWeatherData(40.0, 50.0);
+    }
+
+    @Test
+    void getWeatherDataBatch_FailedItem_ReportedWithoutFailingBatch() {
+        when(weatherCacheStrategy.findAll(anyList())).thenReturn(Arrays.asList((CachedWeather) null));
+        when(weatherDataClient.getWeatherData(51.51, -0.13)).thenReturn(null);
+
+        List<BatchWeatherResult> results = weatherService.getWeatherData(List.of(
+                new Coordinates(51.51, -0.13), new Coordinates(null, -0.13), new Coordinates(91.0, 0.0)));
+
+        assertEquals("No weather data found.", results.get(0).getError());
+        assertEquals("Invalid coordinates.", results.get(1).getError());
+        assertEquals("Invalid coordinates.", results.get(2).getError());
+        assertNull(results.get(0).getWeatherData());
+    }
+
+    @Test
+    void getWeatherDataBatch_NullItem_ReportedWithoutFailingBatch() {
+        when(weatherCacheStrategy.findAll(List.of(new Coordinates(20.0, 20.0)))).thenReturn(List.of(
+                new CachedWeather("weather:20.0:20.0", weatherData, 20.0, 20.0, 0.0, System.currentTimeMillis() + 150_000)));
+
+        List<BatchWeatherResult> results = weatherService.getWeatherData(Arrays.asList(null, new Coordinates(20.0, 20.0)));
+
+        assertEquals("Invalid coordinates.", results.get(0).getError());
+        assertNull(results.get(0).getLat());
+        assertNull(results.get(0).getLon());
+        assertEquals(weatherData, results.get(1).getWeatherData());
+    }
+
+    @Test
+    void getWeatherDataBatch_TooManyCoordinates_ThrowsBadRequestException() {
+        List<Coordinates> coordinates = List.of(new Coordinates(1.0, 1.0), new Coordinates(2.0, 2.0),
+                new Coordinates(3.0, 3.0), new Coordinates(4.0, 4.0));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> weatherService.getWeatherData(coordinates));
+
+        assertEquals("Too many coordinates, at most 3 are allowed.", exception.getMessage());
+        verifyNoInteractions(weatherCacheStrategy, weatherDataClient);
+    }
+
     @Test
     void getWeatherData_WeatherDataClientReturnsNull_ThrowsBadRequestException() {
         double lat = 51.51;
         double lon = -0.13;
 
-        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
-        when(geoOperations.radius(anyString(), any(Circle.class))).thenReturn(null);
+        when(weatherCacheStrategy.find(lat, lon)).thenReturn(null);
         when(weatherDataClient.getWeatherData(lat, lon)).thenReturn(null);
 
         BadRequestException exception = assertThrows(BadRequestException.class, () -> weatherService.getWeatherData(lat, lon));
@@ -126,9 +396,8 @@ class WeatherServiceTest {
         double lon = -0.13;
         String invalidJsonString = "{\"invalid_json\"}";
 
-        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
-        when(geoOperations.radius(anyString(), any(Circle.class))).thenReturn(null);
-        when(weatherDataClient.getWeatherData(lat, lon)).thenReturn(invalidJsonString);
+        when(weatherCacheStrategy.find(lat, lon)).thenReturn(null);
+        when(weatherDataClient.getWeatherData(lat, lon)).thenReturn(invalidJsonString.getBytes(StandardCharsets.UTF_8));
 
         BadRequestException exception = assertThrows(BadRequestException.class, () -> weatherService.getWeatherData(lat, lon));
 
@@ -140,7 +409,7 @@ class WeatherServiceTest {
     void parseWeatherData_Success() throws JsonProcessingException {
         String jsonString = "{\"coord\":{\"lon\":-0.13,\"lat\":51.51},\"weather\":[{\"id\":500,\"description\":\"light rain\"}],\"main\":{\"temp\":280.32,\"humidity\":81},\"wind\":{\"speed\":4.1},\"clouds\":{\"all\":90},\"sys\":{\"sunrise\":1605782400,\"sunset\":1605812400}}";
 
-        WeatherData result = weatherService.parseWeatherData(jsonString);
+        WeatherData result = weatherService.parseWeatherData(jsonString.getBytes(StandardCharsets.UTF_8));
 
         assertNotNull(result);
         assertEquals(51.51, result.getLatitude());
@@ -151,22 +420,22 @@ class WeatherServiceTest {
         assertEquals(81, result.getHumidity());
         assertEquals(4.1, result.getWindSpeed());
         assertEquals(90, result.getCloudiness());
-        assertEquals(LocalDateTime.of(2020, 11, 19, 12, 40), result.getSunrise());
-        assertEquals(LocalDateTime.of(2020, 11, 19, 21, 0), result.getSunset());
+        assertEquals(LocalDateTime.ofInstant(SUNRISE, ZoneId.systemDefault()), result.getSunrise());
+        assertEquals(LocalDateTime.ofInstant(SUNSET, ZoneId.systemDefault()), result.getSunset());
     }
 
     @Test
     void parseWeatherData_InvalidJson_ThrowsBadRequestException() {
         String invalidJsonString = "{\"invalid_json\"}";
 
-        BadRequestException exception = assertThrows(BadRequestException.class, () -> weatherService.parseWeatherData(invalidJsonString));
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> weatherService.parseWeatherData(invalidJsonString.getBytes(StandardCharsets.UTF_8)));
 
         assertEquals("Error occurred during deserialization", exception.getMessage());
     }
 
     @Test
     void parseWeatherData_UnexpectedError_ThrowsBadRequestException() {
-        String invalidJsonString = null;
+        byte[] invalidJsonString = null;
         BadRequestException exception = assertThrows(BadRequestException.class, () -> weatherService.parseWeatherData(invalidJsonString));
 
         assertEquals("Unexpected error while parsing weather data", exception.getMessage());
@@ -177,13 +446,18 @@ class WeatherServiceTest {
         double lat = 51.51;
         double lon = -0.13;
 
-        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
+        when(weatherCacheStrategy.key(lat, lon)).thenReturn("weather:51.51:-0.13");
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
 
         weatherService.cacheWeatherData(lat, lon, weatherData);
 
-        verify(valueOperations, times(1)).set(anyString(), any(WeatherData.class), eq(Duration.ofMinutes(1)));
-        verify(geoOperations, times(1)).add(anyString(), any(Point.class), anyString());
+        verify(valueOperations, times(1)).set(anyString(), any(WeatherData.class), eq(Duration.ofMinutes(3)));
+        verify(weatherCacheStrategy, times(1)).index(lat, lon, "weather:51.51:-0.13", Duration.ofMinutes(3));
+        verify(weatherNearCache, times(1)).invalidate("weather:51.51:-0.13");
+        verify(weatherNearCache, times(1)).put(eq(lat), eq(lon),
+                argThat(cached -> cached.key().equals("weather:51.51:-0.13") && cached.weatherData() == weatherData),
+                eq(Duration.ofMinutes(1)));
+        verify(popularityTracker, times(1)).onStored(argThat(cached -> cached.key().equals("weather:51.51:-0.13")));
     }
 
     @Test
@@ -191,11 +465,48 @@ class WeatherServiceTest {
         double lat = 51.51;
         double lon = -0.13;
 
-        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
-        when(geoOperations.radius(anyString(), any(Circle.class))).thenReturn(null);
+        when(weatherCacheStrategy.find(lat, lon)).thenReturn(null);
 
         WeatherData result = weatherService.getCachedWeatherData(lat, lon);
 
         assertNull(result);
     }
+
+    @Test
+    void getCachedWeatherData_RecordsLookupResultsAndHitDistance() {
+        CachedWeather cached = new CachedWeather("weather:40.0:50.0", weatherData, 40.0, 50.0, 0.5,
+                System.currentTimeMillis() + 150_000);
+        when(weatherCacheStrategy.find(40.0, 50.0)).thenReturn(cached);
+        when(weatherCacheStrategy.find(41.0, 51.0)).thenReturn(null);
+        when(weatherNearCache.get(anyDouble(), anyDouble())).thenReturn(null);
+        when(weatherNearCache.get(42.0, 52.0)).thenReturn(cached);
+
+        weatherService.getCachedWeatherData(40.0, 50.0);
+        weatherService.getCachedWeatherData(41.0, 51.0);
+        weatherService.getCachedWeatherData(42.0, 52.0);
+
+        assertEquals(1, meterRegistry.get("weather.cache.lookups").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("weather.cache.lookups").tag("result", "miss").counter().count());
+        assertEquals(1, meterRegistry.get("weather.cache.lookups").tag("result", "near_hit").counter().count());
+        assertEquals(0.5, meterRegistry.get("weather.cache.hit.distance").summary().totalAmount());
+        assertEquals(2, meterRegistry.get("weather.redis.requests").tag("operation", "find").timer().count());
+    }
+
+    @Test
+    void restore_OnlyWritesKeysNotCachedYetWithRemainingTtl() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(weatherCacheStrategy.key(anyDouble(), anyDouble())).thenAnswer(invocation ->
+                "weather:" + invocation.getArgument(0) + ":" + invocation.getArgument(1));
+        when(valueOperations.setIfAbsent(eq("weather:40.0:50.0"), eq(weatherData), any(Duration.class))).thenReturn(true);
+        when(valueOperations.setIfAbsent(eq("weather:41.0:51.0"), eq(weatherData), any(Duration.class))).thenReturn(false);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        assertTrue(weatherService.restore(new CacheSnapshot.Entry(40.0, 50.0, expiresAt, weatherData)));
+        assertFalse(weatherService.restore(new CacheSnapshot.Entry(41.0, 51.0, expiresAt, weatherData)));
+        assertFalse(weatherService.restore(new CacheSnapshot.Entry(42.0, 52.0, System.currentTimeMillis() - 1, weatherData)));
+
+        verify(weatherCacheStrategy).index(eq(40.0), eq(50.0), eq("weather:40.0:50.0"),
+                argThat(ttl -> ttl.toMillis() > 50_000 && ttl.toMillis() <= 60_000));
+        verify(weatherCacheStrategy, never()).index(eq(41.0), anyDouble(), anyString(), any());
+    }
 }
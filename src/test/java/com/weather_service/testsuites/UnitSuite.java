@@ -4,6 +4,7 @@ import org.junit.platform.suite.api.SelectPackages;
 import org.junit.platform.suite.api.Suite;
 
 @Suite
-@SelectPackages({"com.weather_service.controller", "com.weather_service.service"})
+@SelectPackages({"com.weather_service.caching", "com.weather_service.client", "com.weather_service.controller",
+        "com.weather_service.logging", "com.weather_service.security", "com.weather_service.service"})
 public class UnitSuite {
 }
@@ -56,11 +56,16 @@ services:
       - "9090:9090"
     environment:
       - REDIS_HOST=redis
+    volumes:
+      - weather-cache:/data
     networks:
       - weather-net
     depends_on:
       - redis
 
+volumes:
+  weather-cache:
+
 networks:
   weather-net:
 EOF